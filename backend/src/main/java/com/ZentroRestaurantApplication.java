@@ -5,10 +5,12 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(exclude = { UserDetailsServiceAutoConfiguration.class }, scanBasePackages = { "com" })
 @EntityScan(basePackages = "com.model")
 @EnableJpaRepositories(basePackages = "com.repository")
+@EnableScheduling
 public class ZentroRestaurantApplication {
 
 	public static void main(String[] args) {
@@ -1,65 +1,79 @@
 package com.config;
 
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.List;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 
-import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.DispatcherType;
 
 @Configuration
 @EnableWebSecurity
 public class AppConfig {
 
+    @Autowired
+    private JwtTokenVerifier jwtTokenVerifier;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         
         http.sessionManagement(management -> management.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(Authorize -> Authorize
+                        // Redespacho async del servlet (fin de un stream SSE): la petición ya se autorizó
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/admin/**").hasAnyRole("RESTAURANT_OWNER", "ADMIN")
                         .requestMatchers("/auth/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/api/**").authenticated()
                         .anyRequest().permitAll()
                 )
-                .addFilterBefore(new JwtTokenValidator(), BasicAuthenticationFilter.class)
+                .addFilterBefore(new JwtTokenValidator(jwtTokenVerifier), BasicAuthenticationFilter.class)
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()));
         return http.build();
     }
 
-    private CorsConfigurationSource corsConfigurationSource() {
-        // Implementación de la configuración CORS
-        return new CorsConfigurationSource() {
-            @Override
-            public CorsConfiguration getCorsConfiguration(HttpServletRequest request) {
-                CorsConfiguration cfg = new CorsConfiguration();
-                cfg.setAllowedOriginPatterns(Arrays.asList(
-                        "http://localhost:*",
-                        "https://localhost:*",
-                        "https://*.vercel.app"
-                ));
-                cfg.setAllowedMethods(Collections.singletonList("*"));
-                cfg.setAllowCredentials(true);
-                cfg.setAllowedHeaders(Collections.singletonList("*"));
-                cfg.setExposedHeaders(Arrays.asList("Authorization"));
-                cfg.setMaxAge(3600L);
-                return cfg;
-            }
-        };
+    // La configuración CORS se construye una sola vez (los patrones de origen se compilan
+    // aquí) y se devuelve la misma instancia en cada petición
+    private static final CorsConfiguration CORS_CONFIGURATION = buildCorsConfiguration();
+
+    private static final CorsConfigurationSource CORS_CONFIGURATION_SOURCE = request -> CORS_CONFIGURATION;
+
+    public static CorsConfigurationSource corsConfigurationSource() {
+        return CORS_CONFIGURATION_SOURCE;
+    }
+
+    private static CorsConfiguration buildCorsConfiguration() {
+        CorsConfiguration cfg = new CorsConfiguration();
+        cfg.setAllowedOriginPatterns(List.of(
+                "http://localhost:*",
+                "https://localhost:*",
+                "https://*.vercel.app"
+        ));
+        cfg.setAllowedMethods(List.of("*"));
+        cfg.setAllowCredentials(true);
+        cfg.setAllowedHeaders(List.of("*"));
+        cfg.setExposedHeaders(List.of("Authorization", "Idempotent-Replayed", "X-Next-Cursor", "X-Timings-Since"));
+        cfg.setMaxAge(3600L);
+        return cfg;
     }
     
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    CalibratedBCryptPasswordEncoder passwordEncoder(
+            @Value("${zentro.security.bcrypt.target-ms:250}") long targetMillis,
+            @Value("${zentro.security.bcrypt.min-cost:10}") int minCost,
+            @Value("${zentro.security.bcrypt.max-cost:14}") int maxCost) {
+        // El coste se ajusta al hardware al arrancar para acercarse al tiempo objetivo
+        return CalibratedBCryptPasswordEncoder.calibrate(targetMillis, minCost, maxCost);
     }
 }
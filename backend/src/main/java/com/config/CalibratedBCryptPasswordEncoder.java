@@ -0,0 +1,83 @@
+package com.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCryptPasswordEncoder cuyo coste se elige al arrancar midiendo el hardware actual,
+ * y que expone ese coste para poder detectar hashes guardados con otro distinto.
+ */
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Logger log = LoggerFactory.getLogger(CalibratedBCryptPasswordEncoder.class);
+
+    private static final String CALIBRATION_PASSWORD = "zentro-bcrypt-calibration";
+
+    private final int strength;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * Devuelve true si el hash guardado usa un coste distinto del configurado.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        int cost = costOf(encodedPassword);
+        return cost > 0 && cost != strength;
+    }
+
+    // Formato "$2a$10$...": el coste son los dos dígitos tras el segundo '$'
+    static int costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return -1;
+        }
+        int start = encodedPassword.indexOf('$', 1) + 1;
+        if (start <= 0 || start + 2 > encodedPassword.length()) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(start, start + 2));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Elige el coste cuyo tiempo de hash queda más cerca de {@code targetMillis}.
+     * Cada punto de coste duplica el tiempo, así que se mide desde {@code minCost}
+     * hacia arriba y se para en cuanto se supera el objetivo.
+     */
+    public static CalibratedBCryptPasswordEncoder calibrate(long targetMillis, int minCost, int maxCost) {
+        // Calentamiento del JIT para no sobreestimar el primer coste
+        new BCryptPasswordEncoder(4).encode(CALIBRATION_PASSWORD);
+
+        int chosen = minCost;
+        long chosenMillis = -1;
+        for (int cost = minCost; cost <= maxCost; cost++) {
+            long millis = measure(cost);
+            if (chosenMillis < 0 || Math.abs(millis - targetMillis) < Math.abs(chosenMillis - targetMillis)) {
+                chosen = cost;
+                chosenMillis = millis;
+            }
+            if (millis >= targetMillis) {
+                break;
+            }
+        }
+        log.info("BCrypt cost calibrated to {} (~{} ms per hash, target {} ms)", chosen, chosenMillis, targetMillis);
+        return new CalibratedBCryptPasswordEncoder(chosen);
+    }
+
+    private static long measure(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        long start = System.nanoTime();
+        encoder.encode(CALIBRATION_PASSWORD);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -7,5 +7,6 @@ public class JwtConstant {
                                                                                 // seguro para dev)
     public static final String JWT_HEADER = "Authorization"; // Nombre del encabezado HTTP donde se envía el token
     public static final long EXPIRATION_TIME = 86400000; // Tiempo de expiración del token (1 día)
+    public static final int CLAIMS_VERSION = 2; // Versión del conjunto de claims (2: uid, role, rid)
 
 }
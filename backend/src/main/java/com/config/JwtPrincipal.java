@@ -0,0 +1,59 @@
+package com.config;
+
+import java.security.Principal;
+
+import com.model.USER_ROLE;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Identidad del usuario autenticado, construida a partir de los claims del JWT.
+ *
+ * El filtro {@link JwtTokenValidator} la coloca como principal en el
+ * SecurityContext y los controladores la reciben como argumento, de modo que
+ * conocer el id del usuario o el restaurante que administra no requiere ir a la BD.
+ * Los tokens emitidos antes de la versión 2 de claims solo traen el email.
+ */
+@Getter
+@AllArgsConstructor
+public class JwtPrincipal implements Principal {
+
+    private final Long userId;
+
+    private final String email;
+
+    private final USER_ROLE role;
+
+    private final Long restaurantId;
+
+    private final int claimsVersion;
+
+    // Nombre usado por Authentication.getName(): se mantiene el email
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public boolean hasIdentity() {
+        return userId != null && claimsVersion >= JwtConstant.CLAIMS_VERSION;
+    }
+
+    public boolean isRestaurantOwner() {
+        return role == USER_ROLE.ROLE_RESTAURANT_OWNER;
+    }
+
+    // Un dueño de restaurante solo ve y toca lo del suyo; el resto de roles de admin, todo
+    public boolean canAccessRestaurant(Long restaurantId) {
+        return !isRestaurantOwner() || (restaurantId != null && restaurantId.equals(this.restaurantId));
+    }
+
+    public JwtPrincipal withIdentity(Long userId, USER_ROLE role, Long restaurantId) {
+        return new JwtPrincipal(userId, email, role, restaurantId, JwtConstant.CLAIMS_VERSION);
+    }
+
+    @Override
+    public String toString() {
+        return email;
+    }
+}
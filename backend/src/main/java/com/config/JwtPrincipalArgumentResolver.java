@@ -0,0 +1,61 @@
+package com.config;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import com.model.Restaurant;
+import com.model.USER_ROLE;
+import com.model.User;
+import com.repository.RestaurantRepository;
+import com.service.UserService;
+
+/**
+ * Inyecta el {@link JwtPrincipal} del SecurityContext en los parámetros de los
+ * controladores. Para tokens antiguos (sin uid/rid), o para un propietario que creó
+ * su restaurante después de iniciar sesión, completa la identidad desde la BD.
+ */
+public class JwtPrincipalArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final UserService userService;
+
+    private final RestaurantRepository restaurantRepository;
+
+    public JwtPrincipalArgumentResolver(UserService userService, RestaurantRepository restaurantRepository) {
+        this.userService = userService;
+        this.restaurantRepository = restaurantRepository;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return JwtPrincipal.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+            NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof JwtPrincipal)) {
+            throw new Exception("User not authenticated");
+        }
+
+        JwtPrincipal principal = (JwtPrincipal) authentication.getPrincipal();
+        if (principal.hasIdentity() && (principal.getRestaurantId() != null || !principal.isRestaurantOwner())) {
+            return principal;
+        }
+
+        // Token sin identidad completa: se resuelve una vez contra la BD
+        User user = userService.findUserByEmail(principal.getEmail());
+        Long restaurantId = principal.getRestaurantId();
+        if (restaurantId == null && user.getRole() == USER_ROLE.ROLE_RESTAURANT_OWNER) {
+            Restaurant restaurant = restaurantRepository.findByOwnerId(user.getId());
+            restaurantId = restaurant == null ? null : restaurant.getId();
+        }
+        return principal.withIdentity(user.getId(), user.getRole(), restaurantId);
+    }
+}
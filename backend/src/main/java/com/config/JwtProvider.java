@@ -4,49 +4,87 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.UUID;
   
-import javax.crypto.SecretKey;
-
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 
+import com.model.USER_ROLE;
+import com.model.User;
+
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 
 @Service
 public class JwtProvider {
 
-    private SecretKey key = Keys.hmacShaKeyFor(JwtConstant.SECRET_KEY.getBytes());
+    @Autowired
+    private JwtTokenVerifier jwtTokenVerifier;
 
     public String generateToken(Authentication auth) {
+        return generateToken(auth, null, null);
+    }
+
+    /**
+     * Genera el token incluyendo la identidad del usuario (id, rol y restaurante que
+     * administra) para que las peticiones posteriores no tengan que consultarla en la BD.
+     */
+    public String generateToken(Authentication auth, User user, Long restaurantId) {
         // Lógica para generar el token JWT
         Collection<? extends GrantedAuthority> authorities = auth.getAuthorities();
         String roles = populateAuthorities(authorities);
 
-        String jwt = Jwts.builder().setIssuedAt(new Date())
+        // "jti" único por token para poder revocarlo en el logout
+        JwtBuilder builder = Jwts.builder().setId(UUID.randomUUID().toString())
+            .setIssuedAt(new Date())
             .setExpiration((new Date(new Date().getTime() + JwtConstant.EXPIRATION_TIME))) // 1 día)))
             .claim("email", auth.getName())
-            .claim("authorities", roles)
-            .signWith(key)
-            .compact();
+            .claim("authorities", roles);
+
+        if (user != null) {
+            builder.claim("uid", user.getId())
+                .claim("role", user.getRole() == null ? null : user.getRole().name())
+                .claim("rid", restaurantId)
+                .claim("ver", JwtConstant.CLAIMS_VERSION);
+        }
 
+        String jwt = builder.signWith(jwtTokenVerifier.getKey()).compact();
 
         return jwt;
     }
 
+    /**
+     * Construye el principal a partir de los claims ya verificados.
+     */
+    public static JwtPrincipal toPrincipal(Claims claims) {
+        String email = String.valueOf(claims.get("email"));
+        Object version = claims.get("ver");
+        if (!(version instanceof Number) || ((Number) version).intValue() < JwtConstant.CLAIMS_VERSION) {
+            // Token antiguo: solo conocemos el email
+            return new JwtPrincipal(null, email, null, null, 1);
+        }
+
+        Object role = claims.get("role");
+        return new JwtPrincipal(
+            asLong(claims.get("uid")),
+            email,
+            role == null ? null : USER_ROLE.valueOf(role.toString()),
+            asLong(claims.get("rid")),
+            ((Number) version).intValue());
+    }
+
+    private static Long asLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+
     public String getEmailFromJwtToken(String jwt) {
         if (jwt == null) return null;
         try {
-            // Strip "Bearer " if present
-            if (jwt.startsWith("Bearer ")) {
-                jwt = jwt.substring(7);
-            }
-            // URL-decode in case token was stored in a cookie encoded form
-            jwt = java.net.URLDecoder.decode(jwt, java.nio.charset.StandardCharsets.UTF_8);
-
-            Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(jwt).getBody();
+            // El verificador quita "Bearer ", decodifica la cookie y reutiliza la verificación cacheada
+            Claims claims = jwtTokenVerifier.verify(jwt);
             return String.valueOf(claims.get("email"));
         } catch (Exception e) {
             return null;
@@ -1,22 +1,14 @@
 package com.config;
 
 import java.io.IOException;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-import javax.crypto.SecretKey;
-
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.AuthorityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -25,6 +17,24 @@ import jakarta.servlet.http.HttpServletResponse;
 
 public class JwtTokenValidator extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtTokenValidator.class);
+
+    private static final String JWT_COOKIE = "zentro_jwt";
+
+    // Como mucho 20 avisos por minuto; el resto se cuenta y se resume al cerrar la ventana
+    private static final long LOG_WINDOW_MILLIS = 60_000;
+    private static final int MAX_LOGS_PER_WINDOW = 20;
+
+    private final JwtTokenVerifier jwtTokenVerifier;
+
+    private final AtomicLong logWindowStart = new AtomicLong();
+    private final AtomicInteger logsInWindow = new AtomicInteger();
+    private final AtomicInteger suppressedLogs = new AtomicInteger();
+
+    public JwtTokenValidator(JwtTokenVerifier jwtTokenVerifier) {
+        this.jwtTokenVerifier = jwtTokenVerifier;
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
         // No aplicar el filtro JWT a rutas públicas (login, signup, etc.)
@@ -34,40 +44,48 @@ public class JwtTokenValidator extends OncePerRequestFilter {
     }
 
     @Override
-
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        
+
         String jwt = null;
-        if (request.getCookies() != null) {
-            for (Cookie cookie : request.getCookies()) {
-                if ("zentro_jwt".equals(cookie.getName())) {
-                    jwt = URLDecoder.decode(cookie.getValue(), StandardCharsets.UTF_8);
-                    // Agregar "Bearer " al token
-                    jwt = "Bearer " + jwt;
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (JWT_COOKIE.equals(cookie.getName())) {
+                    // El verificador se encarga de decodificar el valor de la cookie
+                    jwt = cookie.getValue();
                     break;
                 }
             }
         }
 
-        
         if (jwt != null) {
             try {
-                SecretKey key = Keys.hmacShaKeyFor(JwtConstant.SECRET_KEY.getBytes());
-                Claims claims = Jwts.parserBuilder().setSigningKey(key)
-                                .build().parseClaimsJws(jwt.substring(7)).getBody();
-
-                String email = String.valueOf(claims.get("email"));
-                String authorities = String.valueOf(claims.get("authorities"));
-
-                List<GrantedAuthority> auth = AuthorityUtils.commaSeparatedStringToAuthorityList(authorities);
-                Authentication authentication = new UsernamePasswordAuthenticationToken(email, null, auth);
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                // Principal y authorities vienen cacheados por token en el verificador
+                SecurityContextHolder.getContext().setAuthentication(jwtTokenVerifier.authenticate(jwt));
             } catch (Exception e) {
-                System.out.println("Invalid JWT token: " + e.getMessage());
+                logInvalidToken(request, e);
             }
         }
         filterChain.doFilter(request, response);
     }
 
-}
+    private void logInvalidToken(HttpServletRequest request, Exception e) {
+        long now = System.currentTimeMillis();
+        long windowStart = logWindowStart.get();
+        if (now - windowStart >= LOG_WINDOW_MILLIS && logWindowStart.compareAndSet(windowStart, now)) {
+            logsInWindow.set(0);
+            int suppressed = suppressedLogs.getAndSet(0);
+            if (suppressed > 0) {
+                log.warn("event=jwt_invalid_suppressed count={} window_ms={}", suppressed, LOG_WINDOW_MILLIS);
+            }
+        }
+        if (logsInWindow.incrementAndGet() <= MAX_LOGS_PER_WINDOW) {
+            log.warn("event=jwt_invalid reason={} message=\"{}\" method={} path={} ip={}",
+                    e.getClass().getSimpleName(), e.getMessage(), request.getMethod(), request.getRequestURI(),
+                    request.getRemoteAddr());
+        } else {
+            suppressedLogs.incrementAndGet();
+        }
+    }
 
+}
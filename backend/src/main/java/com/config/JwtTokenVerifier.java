@@ -0,0 +1,205 @@
+package com.config;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.SecretKey;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.stereotype.Component;
+
+import com.service.TokenRevocationService;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Verificación centralizada de tokens JWT.
+ *
+ * Mantiene una única clave HMAC y un único parser inmutable (thread-safe), y una
+ * caché acotada de tokens ya verificados indexada por el SHA-256 del token, para no
+ * retener bearer tokens en claro en el heap mientras dura la entrada. Cada entrada
+ * vive como máximo hasta el {@code exp} del token y guarda también el principal y
+ * las authorities ya construidos, así que firma, claims y authorities se procesan
+ * una sola vez por token y no en cada petición.
+ */
+@Component
+public class JwtTokenVerifier {
+
+    private static final int MAX_CACHED_TOKENS = 10_000;
+
+    private final SecretKey key = Keys.hmacShaKeyFor(JwtConstant.SECRET_KEY.getBytes());
+
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+
+    private final ConcurrentHashMap<TokenKey, VerifiedToken> cache = new ConcurrentHashMap<>();
+
+    // Digest y buffers reutilizados por hilo: calcular la clave no reserva memoria aparte de ella
+    private static final ThreadLocal<Sha256> SHA256 = ThreadLocal.withInitial(Sha256::new);
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    public SecretKey getKey() {
+        return key;
+    }
+
+    /**
+     * Verifica el token (acepta prefijo "Bearer " y valores URL-encoded de la cookie)
+     * y devuelve sus claims. Lanza {@link JwtException} si el token no es válido.
+     */
+    public Claims verify(String jwt) {
+        return verifyToken(jwt).claims();
+    }
+
+    /**
+     * Como {@link #verify(String)}, pero devuelve directamente la autenticación para el
+     * SecurityContext. Principal y authorities salen de la caché: por petición solo se
+     * crea el objeto Authentication.
+     */
+    public Authentication authenticate(String jwt) {
+        VerifiedToken token = verifyToken(jwt);
+        return new UsernamePasswordAuthenticationToken(token.principal(), null, token.authorities());
+    }
+
+    private VerifiedToken verifyToken(String jwt) {
+        if (jwt == null) {
+            throw new JwtException("JWT is missing");
+        }
+        String token = normalize(jwt);
+        TokenKey key = SHA256.get().keyOf(token);
+        long now = System.currentTimeMillis();
+
+        VerifiedToken cached = cache.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                checkNotRevoked(cached.claims());
+                return cached;
+            }
+            cache.remove(key, cached);
+            throw new ExpiredJwtException(null, cached.claims(), "JWT expired");
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        List<GrantedAuthority> authorities = List.copyOf(
+                AuthorityUtils.commaSeparatedStringToAuthorityList(String.valueOf(claims.get("authorities"))));
+        Date expiration = claims.getExpiration();
+        VerifiedToken verified = new VerifiedToken(claims, expiration == null ? Long.MAX_VALUE : expiration.getTime(),
+                JwtProvider.toPrincipal(claims), authorities);
+
+        // Solo cacheamos tokens con expiración: es lo que acota la vida de la entrada
+        if (expiration != null) {
+            if (cache.size() >= MAX_CACHED_TOKENS) {
+                evict(now);
+            }
+            cache.put(key, verified);
+        }
+        checkNotRevoked(claims);
+        return verified;
+    }
+
+    // La revocación se comprueba siempre, también para los tokens servidos desde la caché
+    private Claims checkNotRevoked(Claims claims) {
+        if (tokenRevocationService.isRevoked(claims.getId())) {
+            throw new JwtException("JWT revoked");
+        }
+        return claims;
+    }
+
+    /**
+     * Quita el prefijo "Bearer " y decodifica el valor si viene URL-encoded (cookie).
+     */
+    static String normalize(String jwt) {
+        String token = jwt.startsWith("Bearer ") ? jwt.substring(7) : jwt;
+        if (token.indexOf('%') >= 0) {
+            token = URLDecoder.decode(token, StandardCharsets.UTF_8);
+        }
+        return token.trim();
+    }
+
+    // Primero descarta los tokens expirados; si sigue lleno, libera una octava parte
+    private void evict(long now) {
+        cache.values().removeIf(entry -> entry.expiresAt() <= now);
+
+        int toRemove = cache.size() - MAX_CACHED_TOKENS + MAX_CACHED_TOKENS / 8;
+        Iterator<Map.Entry<TokenKey, VerifiedToken>> it = cache.entrySet().iterator();
+        while (toRemove-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    // SHA-256 del token en cuatro longs, con equals/hashCode por valor
+    private record TokenKey(long a, long b, long c, long d) {
+    }
+
+    private static final class Sha256 {
+
+        private final MessageDigest digest;
+
+        private final byte[] output = new byte[32];
+
+        private byte[] input = new byte[1024];
+
+        Sha256() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+
+        TokenKey keyOf(String token) {
+            int length = token.length();
+            if (input.length < length) {
+                input = new byte[Math.max(length, input.length * 2)];
+            }
+            boolean ascii = true;
+            for (int i = 0; i < length && ascii; i++) {
+                char c = token.charAt(i);
+                ascii = c < 0x80;
+                input[i] = (byte) c;
+            }
+            // Un JWT es ASCII (base64url); cualquier otra cosa se codifica en UTF-8
+            if (ascii) {
+                digest.update(input, 0, length);
+            } else {
+                digest.update(token.getBytes(StandardCharsets.UTF_8));
+            }
+            try {
+                digest.digest(output, 0, output.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+            return new TokenKey(readLong(0), readLong(8), readLong(16), readLong(24));
+        }
+
+        private long readLong(int offset) {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (output[offset + i] & 0xffL);
+            }
+            return value;
+        }
+    }
+
+    private record VerifiedToken(Claims claims, long expiresAt, JwtPrincipal principal,
+            List<GrantedAuthority> authorities) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.config;
+
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Schedulers de las tareas @Scheduled.
+ *
+ * Las tareas cortas y frecuentes (flush del carrito, heartbeat SSE, registro de eventos,
+ * barridos) comparten {@code taskScheduler}, dimensionado con
+ * {@code spring.task.scheduling.pool.size}. Las dos que pueden tardar (el archivado por
+ * lotes y el envío de correos por SMTP) tienen un hilo propio cada una
+ * ({@code @Scheduled(scheduler = ...)}) para no retrasar a las demás.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    public static final String ARCHIVE_SCHEDULER = "archiveScheduler";
+
+    public static final String MAIL_SCHEDULER = "mailScheduler";
+
+    // Al declarar más schedulers Spring Boot ya no crea el suyo: se crea aquí con sus propiedades
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(name = ARCHIVE_SCHEDULER)
+    public ThreadPoolTaskScheduler archiveScheduler() {
+        return singleThread("archive-");
+    }
+
+    @Bean(name = MAIL_SCHEDULER)
+    public ThreadPoolTaskScheduler mailScheduler() {
+        return singleThread("mail-");
+    }
+
+    private static ThreadPoolTaskScheduler singleThread(String prefix) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix(prefix);
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        return scheduler;
+    }
+}
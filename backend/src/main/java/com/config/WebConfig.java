@@ -0,0 +1,27 @@
+package com.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.repository.RestaurantRepository;
+import com.service.UserService;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        // Permite recibir el JwtPrincipal como parámetro en los controladores
+        resolvers.add(new JwtPrincipalArgumentResolver(userService, restaurantRepository));
+    }
+}
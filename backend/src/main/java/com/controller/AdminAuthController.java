@@ -1,6 +1,7 @@
 package com.controller;
 
 import java.util.Collection;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -11,21 +12,26 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.config.JwtProvider;
+import com.model.Restaurant;
 import com.model.USER_ROLE;
 import com.model.User;
+import com.repository.RestaurantRepository;
 import com.repository.UserRepository;
 import com.request.LoginRequest;
 import com.response.AuthResponse;
 import com.service.CustomerUserDetailsService;
+import com.service.LoginThrottleService;
+import com.service.PasswordHashService;
 
 import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
@@ -36,21 +42,36 @@ public class AdminAuthController {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashService passwordHashService;
 
     @Autowired
     private JwtProvider jwtProvider;
 
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
     @Autowired
     private CustomerUserDetailsService customerUserDetailsService;
 
+    @Autowired
+    private LoginThrottleService loginThrottleService;
+
     @PostMapping("/signin")
-    public ResponseEntity<AuthResponse> signin(@RequestBody LoginRequest req, HttpServletResponse response) {
+    public ResponseEntity<AuthResponse> signin(@RequestBody LoginRequest req, HttpServletRequest request,
+            HttpServletResponse response) {
         String username = req.getEmail();
         String password = req.getPassword();
 
+        // Rechazo inmediato si el email o la IP están bloqueados, antes de tocar BD o BCrypt
+        String clientIp = request.getRemoteAddr();
+        long retryAfterMillis = loginThrottleService.checkSignin(username, clientIp);
+        if (retryAfterMillis > 0) {
+            return tooManyAttempts(retryAfterMillis);
+        }
+
         try {
             Authentication authentication = authenticate(username, password);
+            loginThrottleService.recordSigninSuccess(username);
 
             Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
             String role = authorities.isEmpty() ? null : authorities.iterator().next().getAuthority();
@@ -66,7 +87,7 @@ public class AdminAuthController {
 
             User user = userRepository.findByEmail(username);
 
-            String jwt = jwtProvider.generateToken(authentication);
+            String jwt = jwtProvider.generateToken(authentication, user, findOwnedRestaurantId(user));
 
             // Establecer cookie HttpOnly
             setJwtCookie(response, jwt);
@@ -80,16 +101,35 @@ public class AdminAuthController {
             return new ResponseEntity<>(authResponse, HttpStatus.OK);
 
         } catch (BadCredentialsException e) {
+            loginThrottleService.recordSigninFailure(username, clientIp);
             AuthResponse authResponse = new AuthResponse();
             authResponse.setMessage("Invalid username or password");
             return new ResponseEntity<>(authResponse, HttpStatus.UNAUTHORIZED);
+        } catch (RejectedExecutionException e) {
+            // Pool de BCrypt saturado: rechazo rápido en lugar de encolar la petición
+            AuthResponse authResponse = new AuthResponse();
+            authResponse.setMessage("Too many sign in requests, please try again in a moment");
+            return new ResponseEntity<>(authResponse, HttpStatus.SERVICE_UNAVAILABLE);
         } catch (Exception e) {
+            if (e instanceof UsernameNotFoundException) {
+                loginThrottleService.recordSigninFailure(username, clientIp);
+            }
             AuthResponse authResponse = new AuthResponse();
             authResponse.setMessage("Error during login: " + e.getMessage());
             return new ResponseEntity<>(authResponse, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    // Respuesta 429 con Retry-After cuando el login está bloqueado temporalmente
+    private ResponseEntity<AuthResponse> tooManyAttempts(long retryAfterMillis) {
+        long seconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+        AuthResponse authResponse = new AuthResponse();
+        authResponse.setMessage("Too many attempts. Try again in " + seconds + " seconds");
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(org.springframework.http.HttpHeaders.RETRY_AFTER, String.valueOf(seconds))
+                .body(authResponse);
+    }
+
     private Authentication authenticate(String username, String password) {
         UserDetails userDetails = customerUserDetailsService.loadUserByUsername(username);
 
@@ -97,15 +137,26 @@ public class AdminAuthController {
             throw new BadCredentialsException("Invalid username");
         }
 
-        if (!passwordEncoder.matches(password, userDetails.getPassword())) {
+        // El hash se verifica en el pool acotado de BCrypt, no en el hilo de la petición
+        if (!passwordHashService.matches(password, userDetails.getPassword())) {
             throw new BadCredentialsException("Invalid password");
         }
+        passwordHashService.rehashIfNeeded(username, password, userDetails.getPassword());
         return new UsernamePasswordAuthenticationToken(
                 userDetails,
                 null,
                 userDetails.getAuthorities());
     }
 
+    // Restaurante administrado por el usuario (se incluye en el JWT para evitar consultas)
+    private Long findOwnedRestaurantId(User user) {
+        if (user.getRole() != USER_ROLE.ROLE_RESTAURANT_OWNER) {
+            return null;
+        }
+        Restaurant restaurant = restaurantRepository.findByOwnerId(user.getId());
+        return restaurant == null ? null : restaurant.getId();
+    }
+
     private void setJwtCookie(HttpServletResponse response, String jwt) {
         org.springframework.http.ResponseCookie cookie = org.springframework.http.ResponseCookie.from("zentro_jwt", jwt)
                 .httpOnly(true)
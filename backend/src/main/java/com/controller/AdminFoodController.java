@@ -8,18 +8,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.config.JwtPrincipal;
 import com.model.Food;
 import com.model.Restaurant;
-import com.model.User;
 import com.request.CreateFoodRequest;
+import com.request.UpdateFoodPriceRequest;
 import com.response.MessageResponse;
 import com.service.FoodService;
 import com.service.RestaurantService;
-import com.service.UserService;
 
 @RestController
 @RequestMapping("/api/admin/food")
@@ -28,17 +27,13 @@ public class AdminFoodController {
     @Autowired
     private FoodService foodService;
     
-    @Autowired
-    private UserService userService;
-
     @Autowired
     private RestaurantService restaurantService;
 
     @PostMapping
     public ResponseEntity<Food> createFood(@RequestBody CreateFoodRequest req,
-                                            @RequestHeader("Authorization") String jwt) throws Exception {
+                                            JwtPrincipal principal) throws Exception {
 
-        User user = userService.findUserByJwtToken(jwt);
         Restaurant restaurant = restaurantService.findRestaurantByID(req.getRestaurantId());  
         Food food = foodService.createFood(req, req.getCategory(), restaurant);
         return new ResponseEntity<>(food, HttpStatus.CREATED);
@@ -47,9 +42,8 @@ public class AdminFoodController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<MessageResponse> deleteFood(@PathVariable Long id,
-                                            @RequestHeader("Authorization") String jwt) throws Exception {
+                                            JwtPrincipal principal) throws Exception {
 
-        User user = userService.findUserByJwtToken(jwt); 
         foodService.deleteFood(id);
 
         MessageResponse res = new MessageResponse();
@@ -62,11 +56,25 @@ public class AdminFoodController {
     
     @PutMapping("/{id}")
     public ResponseEntity<Food> updateFoodAvaibilityStatus(@PathVariable Long id,
-                                            @RequestHeader("Authorization") String jwt) throws Exception {
+                                            JwtPrincipal principal) throws Exception {
 
-        User user = userService.findUserByJwtToken(jwt); 
         Food food = foodService.updateAvailabilityStatus(id);
 
         return new ResponseEntity<>(food, HttpStatus.OK);
     }
+
+    @PutMapping("/{id}/price")
+    public ResponseEntity<Food> updateFoodPrice(@PathVariable Long id,
+                                            @RequestBody UpdateFoodPriceRequest req,
+                                            JwtPrincipal principal) throws Exception {
+
+        // El nuevo precio se propaga a todos los carritos: solo el dueño de la comida puede cambiarlo
+        Food current = foodService.findFoodById(id);
+        if (!principal.canAccessRestaurant(current.getRestaurant() == null ? null : current.getRestaurant().getId())) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        Food food = foodService.updatePrice(id, req.getPrice());
+
+        return new ResponseEntity<>(food, HttpStatus.OK);
+    }
 }
@@ -1,9 +1,14 @@
 package com.controller;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,11 +17,16 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.config.JwtPrincipal;
 import com.model.Order;
-import com.model.User;
+import com.model.OrderLogEvent;
+import com.model.OrderStatus;
+import com.response.OrderPage;
+import com.response.StageTiming;
+import com.service.OrderEventBus;
 import com.service.OrderService;
-import com.service.UserService;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -25,31 +35,100 @@ public class AdminOrderController {
     private OrderService orderService;
 
     @Autowired
-    private UserService userService;
+    private OrderEventBus orderEventBus;
 
     
     @GetMapping("/order/restaurant/{id}")
     public ResponseEntity<List<Order>> getOrderHistory(
         @PathVariable Long id,
         @RequestParam(required = false) String order_status,
-        @RequestHeader("Authorization") String jwt) throws Exception {
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit,
+        @RequestParam(defaultValue = "false") boolean include_archived,
+        JwtPrincipal principal) throws Exception {
 
-        User user = userService.findUserByJwtToken(jwt);
-        List<Order> orders = orderService.getRestaurantOrder(id, order_status);
-        return new ResponseEntity<>(orders, HttpStatus.OK);
+        if (!principal.canAccessRestaurant(id)) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        OrderPage page = orderService.getRestaurantOrder(id, order_status, from, to, cursor, limit, include_archived);
+        // La página siguiente se pide con ?cursor=<X-Next-Cursor>
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(page.getOrders());
+    }
+
+
+    // Resumen barato para la pantalla de cocina: pedidos por estado, sin consultar la BD
+    @GetMapping("/order/restaurant/{id}/summary")
+    public ResponseEntity<Map<OrderStatus, Long>> getOrderSummary(
+        @PathVariable Long id,
+        JwtPrincipal principal) throws Exception {
+
+        if (!principal.canAccessRestaurant(id)) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        return new ResponseEntity<>(orderService.getRestaurantOrderSummary(id), HttpStatus.OK);
     }
 
+    // Tiempos medios de preparación, reparto y total, desde las proyecciones del registro de eventos
+    @GetMapping("/order/restaurant/{id}/timings")
+    public ResponseEntity<Map<String, StageTiming>> getOrderTimings(
+        @PathVariable Long id,
+        JwtPrincipal principal) throws Exception {
+
+        if (!principal.canAccessRestaurant(id)) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        // Los tiempos son acumulados desde X-Timings-Since (se reinicia con cada arranque)
+        return ResponseEntity.ok()
+                .header("X-Timings-Since", orderService.getOrderTimingsSince().toInstant().toString())
+                .body(orderService.getRestaurantOrderTimings(id));
+    }
+
+    @GetMapping("/order/{id}/history")
+    public ResponseEntity<List<OrderLogEvent>> getOrderHistory(
+        @PathVariable Long id,
+        JwtPrincipal principal) throws Exception {
+
+        // El pedido puede estar archivado o cancelado: su restaurante sale de sus eventos
+        List<OrderLogEvent> history = orderService.getOrderHistory(id);
+        if (!history.isEmpty() && !principal.canAccessRestaurant(history.get(0).getRestaurantId())) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        return new ResponseEntity<>(history, HttpStatus.OK);
+    }
+
+    // Feed SSE de pedidos nuevos y cambios de estado del restaurante (sustituye al sondeo)
+    @GetMapping(value = "/order/restaurant/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrderEvents(
+        @PathVariable Long id,
+        @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+        JwtPrincipal principal) throws Exception {
+
+        // Un dueño solo puede escuchar su propio restaurante
+        if (!principal.canAccessRestaurant(id)) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .body(orderEventBus.subscribeRestaurant(id, lastEventId));
+    }
 
     @PutMapping("/order/{id}/{orderStatus}")
     public ResponseEntity<Order> updateOrderStatus(
         @PathVariable Long id,
         @PathVariable String orderStatus,
-        @RequestHeader("Authorization") String jwt) throws Exception {
+        JwtPrincipal principal) throws Exception {
 
-        User user = userService.findUserByJwtToken(jwt);
+        if (!principal.canAccessRestaurant(orderService.findRestaurantIdOfOrder(id))) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
         Order orders = orderService.updateOrder(id, orderStatus);
         return new ResponseEntity<>(orders, HttpStatus.OK);
     }
-
-    
 }
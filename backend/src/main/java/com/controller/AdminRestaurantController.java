@@ -9,10 +9,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.config.JwtPrincipal;
 import com.model.Restaurant;
 import com.model.User;
 import com.request.CreateRestaurantRequest;
@@ -33,9 +33,9 @@ public class AdminRestaurantController {
     @PostMapping()
     public ResponseEntity<Restaurant> createRestaurant(
         @RequestBody CreateRestaurantRequest req,
-        @RequestHeader ("Authorization") String jwt
+        JwtPrincipal principal
     ) throws Exception{
-        User user = userService.findUserByJwtToken(jwt);
+        User user = userService.findUserByEmail(principal.getEmail());
 
         Restaurant restaurant = restaurantService.createRestaurant(req, user);
         return new ResponseEntity<>(restaurant, HttpStatus.CREATED);
@@ -45,11 +45,10 @@ public class AdminRestaurantController {
     @PutMapping("/{id}")
     public ResponseEntity<Restaurant> updateRestaurant(
         @RequestBody CreateRestaurantRequest req,
-        @RequestHeader ("Authorization") String jwt,
+        JwtPrincipal principal,
         @PathVariable Long id
 
     ) throws Exception{
-        User user = userService.findUserByJwtToken(jwt);
 
         Restaurant restaurant = restaurantService.updateRestaurant(id, req);
         return new ResponseEntity<>(restaurant, HttpStatus.CREATED);
@@ -58,11 +57,10 @@ public class AdminRestaurantController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<MessageResponse> deleteRestaurant(
-        @RequestHeader ("Authorization") String jwt,
+        JwtPrincipal principal,
         @PathVariable Long id
 
     ) throws Exception{
-        User user = userService.findUserByJwtToken(jwt);
 
         restaurantService.deleteRestaurant(id);
         MessageResponse res = new MessageResponse();
@@ -72,11 +70,10 @@ public class AdminRestaurantController {
 
     @PutMapping("/{id}/status")
     public ResponseEntity<Restaurant> updateRestaurantStatus(
-        @RequestHeader ("Authorization") String jwt,
+        JwtPrincipal principal,
         @PathVariable Long id
 
     ) throws Exception{
-        User user = userService.findUserByJwtToken(jwt);
 
         Restaurant restaurant = restaurantService.updateRestaurantStatus(id);
 
@@ -86,11 +83,13 @@ public class AdminRestaurantController {
     @GetMapping("/user")
     public ResponseEntity<Restaurant> findRestaurantByUserId(
         
-        @RequestHeader ("Authorization") String jwt
+        JwtPrincipal principal
     ) throws Exception{
-        User user = userService.findUserByJwtToken(jwt);
-
-        Restaurant restaurant = restaurantService.getRestaurantByUserId(user.getId());
+        // El restaurante del propietario viaja en el JWT: una sola búsqueda por id. Sin rid
+        // (un admin, o un token emitido antes de crear el restaurante) se busca por el usuario
+        Restaurant restaurant = principal.getRestaurantId() != null
+                ? restaurantService.findRestaurantByID(principal.getRestaurantId())
+                : restaurantService.getRestaurantByUserId(principal.getUserId());
         return new ResponseEntity<>(restaurant, HttpStatus.OK);
     }
 
@@ -1,9 +1,10 @@
 package com.controller;
 
 import java.util.Collection;
-import java.util.UUID;
-import java.time.LocalDateTime;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -13,19 +14,20 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.config.JwtProvider;
+import com.config.JwtTokenVerifier;
 import com.model.Cart;
-import com.model.PasswordResetToken;
+import com.model.Restaurant;
 import com.model.USER_ROLE;
 import com.model.User;
 import com.repository.CartRepository;
-import com.repository.PasswordResetTokenRepository;
+import com.repository.RestaurantRepository;
 import com.repository.UserRepository;
 import com.request.ForgotPasswordRequest;
 import com.request.GoogleAuthRequest;
@@ -34,34 +36,56 @@ import com.request.ResetPasswordRequest;
 import com.response.AuthResponse;
 import com.response.MessageResponse;
 import com.service.CustomerUserDetailsService;
-import com.service.EmailService;
-
+import com.service.LoginThrottleService;
+import com.service.PasswordHashService;
+import com.service.PasswordResetService;
+import com.service.TokenRevocationService;
+import com.service.UserIdentityCache;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/auth")
 public class AuthController {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashService passwordHashService;
 
     @Autowired
     private JwtProvider jwtProvider;
 
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @Autowired
+    private JwtTokenVerifier jwtTokenVerifier;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     @Autowired
     private CustomerUserDetailsService customerUserDetailsService;
 
+    @Autowired
+    private LoginThrottleService loginThrottleService;
+
     @Autowired
     private CartRepository cartRepository;
 
     @Autowired
-    private PasswordResetTokenRepository passwordResetTokenRepository;
+    private PasswordResetService passwordResetService;
 
     @Autowired
-    private EmailService emailService;
+    private UserIdentityCache userIdentityCache;
 
     // 📝 Registro de nuevo usuario
     @PostMapping("/signup")
@@ -75,7 +99,7 @@ public class AuthController {
         createdUser.setEmail(user.getEmail());
         createdUser.setFullName(user.getFullName());
         createdUser.setRole(user.getRole());
-        createdUser.setPassword(passwordEncoder.encode(user.getPassword()));
+        createdUser.setPassword(passwordHashService.encode(user.getPassword()));
         createdUser.setProvider("LOCAL");
 
         User savedUser = userRepository.save(createdUser);
@@ -87,7 +111,7 @@ public class AuthController {
         Authentication authentication = new UsernamePasswordAuthenticationToken(user.getEmail(), user.getPassword());
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        String jwt = jwtProvider.generateToken(authentication);
+        String jwt = jwtProvider.generateToken(authentication, savedUser, null);
 
         // Establecer cookie HttpOnly
         setJwtCookie(response, jwt);
@@ -103,19 +127,28 @@ public class AuthController {
 
     // 🔑 Inicio de sesión con email y contraseña
     @PostMapping("/signin")
-    public ResponseEntity<AuthResponse> signin(@RequestBody LoginRequest req, HttpServletResponse response) {
+    public ResponseEntity<AuthResponse> signin(@RequestBody LoginRequest req, HttpServletRequest request,
+            HttpServletResponse response) {
         String username = req.getEmail();
         String password = req.getPassword();
 
+        // Rechazo inmediato si el email o la IP están bloqueados, antes de tocar BD o BCrypt
+        String clientIp = request.getRemoteAddr();
+        long retryAfterMillis = loginThrottleService.checkSignin(username, clientIp);
+        if (retryAfterMillis > 0) {
+            return tooManyAttempts(retryAfterMillis);
+        }
+
         try {
             Authentication authentication = authenticate(username, password);
+            loginThrottleService.recordSigninSuccess(username);
 
             Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
             String role = authorities.isEmpty() ? null : authorities.iterator().next().getAuthority();
 
             User user = userRepository.findByEmail(username);
 
-            String jwt = jwtProvider.generateToken(authentication);
+            String jwt = jwtProvider.generateToken(authentication, user, findOwnedRestaurantId(user));
 
             // Establecer cookie HttpOnly
             setJwtCookie(response, jwt);
@@ -129,10 +162,19 @@ public class AuthController {
             return new ResponseEntity<>(authResponse, HttpStatus.OK);
 
         } catch (BadCredentialsException e) {
+            loginThrottleService.recordSigninFailure(username, clientIp);
             AuthResponse authResponse = new AuthResponse();
             authResponse.setMessage("Invalid username or password");
             return new ResponseEntity<>(authResponse, HttpStatus.UNAUTHORIZED);
+        } catch (RejectedExecutionException e) {
+            // Pool de BCrypt saturado: rechazo rápido en lugar de encolar la petición
+            AuthResponse authResponse = new AuthResponse();
+            authResponse.setMessage("Too many sign in requests, please try again in a moment");
+            return new ResponseEntity<>(authResponse, HttpStatus.SERVICE_UNAVAILABLE);
         } catch (Exception e) {
+            if (e instanceof UsernameNotFoundException) {
+                loginThrottleService.recordSigninFailure(username, clientIp);
+            }
             AuthResponse authResponse = new AuthResponse();
             authResponse.setMessage("Error during login: " + e.getMessage());
             return new ResponseEntity<>(authResponse, HttpStatus.INTERNAL_SERVER_ERROR);
@@ -156,6 +198,7 @@ public class AuthController {
                 if (req.getProfileImage() != null && !req.getProfileImage().equals(existingUser.getProfileImage())) {
                     existingUser.setProfileImage(req.getProfileImage());
                     userRepository.save(existingUser);
+                    userIdentityCache.evict(existingUser.getEmail());
                 }
 
                 Authentication authentication = new UsernamePasswordAuthenticationToken(
@@ -169,7 +212,8 @@ public class AuthController {
                                         new org.springframework.security.core.authority.SimpleGrantedAuthority(
                                                 "ROLE_RESTAURANT_OWNER")));
 
-                String jwt = jwtProvider.generateToken(authentication);
+                String jwt = jwtProvider.generateToken(authentication, existingUser,
+                        findOwnedRestaurantId(existingUser));
 
                 // Establecer cookie HttpOnly
                 setJwtCookie(response, jwt);
@@ -205,7 +249,7 @@ public class AuthController {
                                 .singletonList(new org.springframework.security.core.authority.SimpleGrantedAuthority(
                                         "ROLE_CUSTOMER")));
 
-                String jwt = jwtProvider.generateToken(authentication);
+                String jwt = jwtProvider.generateToken(authentication, savedUser, null);
 
                 // Establecer cookie HttpOnly
                 setJwtCookie(response, jwt);
@@ -228,7 +272,22 @@ public class AuthController {
 
     // 🚪 Cerrar sesión
     @PostMapping("/logout")
-    public ResponseEntity<MessageResponse> logout(HttpServletResponse response) {
+    public ResponseEntity<MessageResponse> logout(HttpServletRequest request, HttpServletResponse response) {
+        // Revocar el token actual: deja de ser válido aunque alguien conserve una copia
+        if (request.getCookies() != null) {
+            for (Cookie c : request.getCookies()) {
+                if ("zentro_jwt".equals(c.getName())) {
+                    try {
+                        Claims claims = jwtTokenVerifier.verify(c.getValue());
+                        tokenRevocationService.revoke(claims.getId(), claims.getExpiration());
+                    } catch (JwtException e) {
+                        // Token ya inválido o expirado: no hay nada que revocar
+                    }
+                    break;
+                }
+            }
+        }
+
         // Eliminar la cookie con los mismos atributos que al crearla
         org.springframework.http.ResponseCookie cookie = org.springframework.http.ResponseCookie.from("zentro_jwt", "")
                 .httpOnly(true)
@@ -250,32 +309,21 @@ public class AuthController {
 
     // 📧 Endpoint para solicitar recuperación de contraseña
     @PostMapping("/forgot-password")
-    public ResponseEntity<MessageResponse> forgotPassword(@RequestBody ForgotPasswordRequest request) {
-        try {
-            // 1. Buscar usuario por email
-            User user = userRepository.findByEmail(request.getEmail());
-
-            // 🔍 Si no existe, retornamos OK por seguridad (para no revelar emails
-            // registrados)
-            if (user == null) {
-                return ResponseEntity.ok(new MessageResponse("Si el correo existe, se ha enviado un enlace."));
-            }
-
-            // 2. Generar token único
-            String token = UUID.randomUUID().toString();
-
-            // 3. Guardar token en base de datos
-            // Primero borramos tokens anteriores del usuario si existen
-            passwordResetTokenRepository.deleteByUserId(user.getId());
-
-            PasswordResetToken resetToken = new PasswordResetToken();
-            resetToken.setToken(token);
-            resetToken.setUser(user);
-            resetToken.setExpiryDate(LocalDateTime.now().plusMinutes(10)); // ⏳ Expira en 10 min
-            passwordResetTokenRepository.save(resetToken);
+    public ResponseEntity<MessageResponse> forgotPassword(@RequestBody ForgotPasswordRequest request,
+            HttpServletRequest httpRequest) {
+        // Cada solicitud cuesta un envío SMTP: se limita por email y por IP
+        long retryAfterMillis = loginThrottleService.acquirePasswordReset(request.getEmail(),
+                httpRequest.getRemoteAddr());
+        if (retryAfterMillis > 0) {
+            long seconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(org.springframework.http.HttpHeaders.RETRY_AFTER, String.valueOf(seconds))
+                    .body(new MessageResponse("Too many attempts. Try again in " + seconds + " seconds"));
+        }
 
-            // 4. Enviar email
-            emailService.sendPasswordResetEmail(user.getEmail(), token);
+        try {
+            // Guarda el token y encola el email; el envío SMTP ocurre en segundo plano
+            passwordResetService.createPasswordResetToken(request.getEmail());
 
             return ResponseEntity.ok(new MessageResponse("Si el correo existe, se ha enviado un enlace."));
 
@@ -290,39 +338,35 @@ public class AuthController {
     @PostMapping("/reset-password")
     public ResponseEntity<MessageResponse> resetPassword(@RequestBody ResetPasswordRequest request) {
         try {
-            // 1. Buscar el token en la BD
-            PasswordResetToken resetToken = passwordResetTokenRepository.findByToken(request.getToken())
-                    .orElse(null);
-
-            // 🚫 Validar si el token existe
-            if (resetToken == null) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(new MessageResponse("Token inválido o expirado"));
-            }
-
-            // ⏳ Validar si ha expirado
-            if (resetToken.isExpired()) {
-                passwordResetTokenRepository.delete(resetToken); // Limpiar token expirado
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(new MessageResponse("El token ha expirado"));
-            }
-
-            // 2. Actualizar contraseña del usuario
-            User user = resetToken.getUser();
-            user.setPassword(passwordEncoder.encode(request.getPassword()));
-            userRepository.save(user);
-
-            // 3. Borrar el token usado
-            passwordResetTokenRepository.delete(resetToken);
+            // Valida el token (por su hash), actualiza la contraseña y borra el token
+            passwordResetService.resetPassword(request.getToken(), request.getPassword());
 
             return ResponseEntity.ok(new MessageResponse("Contraseña actualizada correctamente"));
 
+        } catch (PasswordResetService.InvalidResetTokenException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new MessageResponse(e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new MessageResponse("Servidor ocupado, inténtalo de nuevo en un momento"));
         } catch (Exception e) {
+            // Cualquier otro fallo es interno: se registra y no se devuelve su texto
+            log.error("Password reset failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new MessageResponse("Error al actualizar la contraseña"));
         }
     }
 
+    // ⏱️ Respuesta 429 con Retry-After cuando el login está bloqueado temporalmente
+    private ResponseEntity<AuthResponse> tooManyAttempts(long retryAfterMillis) {
+        long seconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+        AuthResponse authResponse = new AuthResponse();
+        authResponse.setMessage("Too many attempts. Try again in " + seconds + " seconds");
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(org.springframework.http.HttpHeaders.RETRY_AFTER, String.valueOf(seconds))
+                .body(authResponse);
+    }
+
     // 🕵️‍♂️ Método helper para autenticación
     private Authentication authenticate(String username, String password) {
         UserDetails userDetails = customerUserDetailsService.loadUserByUsername(username);
@@ -336,15 +380,26 @@ public class AuthController {
             throw new BadCredentialsException("This account uses Google Sign In. Please sign in with Google.");
         }
 
-        if (!passwordEncoder.matches(password, userDetails.getPassword())) {
+        // El hash se verifica en el pool acotado de BCrypt, no en el hilo de la petición
+        if (!passwordHashService.matches(password, userDetails.getPassword())) {
             throw new BadCredentialsException("Invalid password");
         }
+        passwordHashService.rehashIfNeeded(username, password, userDetails.getPassword());
         return new UsernamePasswordAuthenticationToken(
                 userDetails,
                 null,
                 userDetails.getAuthorities());
     }
 
+    // 🏪 Restaurante administrado por el usuario (se incluye en el JWT para evitar consultas)
+    private Long findOwnedRestaurantId(User user) {
+        if (user.getRole() != USER_ROLE.ROLE_RESTAURANT_OWNER) {
+            return null;
+        }
+        Restaurant restaurant = restaurantRepository.findByOwnerId(user.getId());
+        return restaurant == null ? null : restaurant.getId();
+    }
+
     // 🍪 Método helper para establecer la cookie JWT
     private void setJwtCookie(HttpServletResponse response, String jwt) {
         org.springframework.http.ResponseCookie cookie = org.springframework.http.ResponseCookie.from("zentro_jwt", jwt)
@@ -5,6 +5,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -12,10 +13,12 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.config.JwtPrincipal;
 import com.model.Cart;
 import com.model.CartItem;
 import com.model.User;
 import com.request.AddCartItemRequest;
+import com.request.PatchCartRequest;
 import com.request.UpdateCartItemRequest;
 import com.service.CartService;
 import com.service.UserService;
@@ -40,7 +43,8 @@ public class CartController {
     public ResponseEntity<CartItem> updateCartItemQuantity(
             @RequestBody UpdateCartItemRequest req,
                 @RequestHeader("Authorization") String jwt  ) throws Exception {
-        CartItem cartItem = cartService.updateCartItemQuantity(req.getCartItemId(), req.getQuantity());
+        User user = userService.findUserByJwtToken(jwt);
+        CartItem cartItem = cartService.updateCartItemQuantity(req.getCartItemId(), req.getQuantity(), user.getId());
         return new ResponseEntity<>(cartItem, HttpStatus.OK);
     }
 
@@ -53,6 +57,15 @@ public class CartController {
     }
 
 
+    // Varias altas, cambios y bajas en una sola petición; devuelve el carrito resultante con su versión
+    @PatchMapping("/cart")
+    public ResponseEntity<Cart> patchCart(@RequestBody PatchCartRequest req,
+                                            JwtPrincipal principal) throws Exception {
+        Cart cart = cartService.applyOperations(principal.getUserId(), req.getOperations());
+        return new ResponseEntity<>(cart, HttpStatus.OK);
+    }
+
+
     @PutMapping("/cart/clear")
     public ResponseEntity<Cart> clearCart(
             @RequestHeader("Authorization") String jwt  ) throws Exception {
@@ -8,14 +8,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.config.JwtPrincipal;
 import com.model.Category;
-import com.model.User;
 import com.service.CategoryService;
-import com.service.UserService;
 
 
 
@@ -26,26 +24,21 @@ public class CategoryController {
     @Autowired
     private CategoryService categoryService;
 
-    @Autowired
-    private UserService userService;
-
 
     @PostMapping("/admin/category")
     public ResponseEntity<Category> createCategory(@RequestBody Category category,
-                                                    @RequestHeader ("Authorization") String jwt) throws Exception {
-        User user = userService.findUserByJwtToken(jwt);
+                                                    JwtPrincipal principal) throws Exception {
 
-        Category createdCategory = categoryService.createCategory(category.getName(), user.getId()); 
+        Category createdCategory = categoryService.createCategory(category.getName(), principal.getUserId());
         return new ResponseEntity<>(createdCategory, HttpStatus.CREATED);
     }
 
 
     @GetMapping("/category/restaurant")
     public ResponseEntity<List<Category>> getRestaurantCategory(
-                                                    @RequestHeader ("Authorization") String jwt) throws Exception {
-        User user = userService.findUserByJwtToken(jwt);
+                                                    JwtPrincipal principal) throws Exception {
 
-        List<Category> categories = categoryService.findCategryByRestaurantId(user.getId());
+        List<Category> categories = categoryService.findCategryByRestaurantId(principal.getUserId());
         return new ResponseEntity<>(categories, HttpStatus.OK);
     }
 }
@@ -3,18 +3,27 @@ package com.controller;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.config.JwtPrincipal;
 import com.model.Order;
 import com.model.User;
 import com.request.OrderRequest;
+import com.response.IdempotentResponse;
+import com.response.OrderPage;
+import com.service.IdempotencyService;
+import com.service.OrderEventBus;
 import com.service.OrderService;
 import com.service.UserService;
 
@@ -28,23 +37,64 @@ public class OrderController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private OrderEventBus orderEventBus;
+
     @PostMapping("/order")
-    public ResponseEntity<Order> createOrder(@RequestBody OrderRequest req,
-                                                    @RequestHeader("Authorization") String jwt  ) throws Exception {
+    public ResponseEntity<?> createOrder(@RequestBody OrderRequest req,
+                                                    @RequestHeader("Authorization") String jwt,
+                                                    @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) throws Exception {
 
         User user = userService.findUserByJwtToken(jwt);
-        Order order = orderService.createOrder(req, user);
-        return new ResponseEntity<>(order, HttpStatus.OK);
+        if (idempotencyKey == null) {
+            Order order = orderService.createOrder(req, user);
+            return new ResponseEntity<>(order, HttpStatus.OK);
+        }
+
+        // Un reintento con la misma clave devuelve el pedido ya creado en lugar de crear otro.
+        // La clave se completa en la misma transacción que crea el pedido
+        IdempotentResponse response = idempotencyService.execute(user.getId(), idempotencyKey, req,
+                completion -> orderService.createOrder(req, user, completion::complete));
+        return ResponseEntity.status(response.getStatus())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotent-Replayed", String.valueOf(response.isReplayed()))
+                .body(response.getBody());
     }
 
 
     
     @GetMapping("/order/user")
     public ResponseEntity<List<Order>> getOrderHistory(
-            @RequestHeader("Authorization") String jwt  ) throws Exception {
+            @RequestHeader("Authorization") String jwt,
+            @RequestParam(required = false) String order_status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean include_archived) throws Exception {
 
         User user = userService.findUserByJwtToken(jwt);
-        List<Order> orders = orderService.getUsersOrder(user.getId());
-        return new ResponseEntity<>(orders, HttpStatus.OK);
+        // Los pedidos terminados antiguos están archivados: ?include_archived=true para el historial completo
+        OrderPage page = orderService.getUsersOrder(user.getId(), order_status, cursor, limit, include_archived);
+        // La página siguiente se pide con ?cursor=<X-Next-Cursor>
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(page.getOrders());
+    }
+
+    // Seguimiento en vivo de los pedidos del usuario (SSE): cambios de estado, fusionados
+    // si llegan varios seguidos del mismo pedido
+    @GetMapping(value = "/order/user/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrderEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            JwtPrincipal principal) throws Exception {
+
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .body(orderEventBus.subscribeCustomer(principal.getUserId(), lastEventId));
     }
 }
@@ -70,22 +70,7 @@ public class UserController {
         }
 
         User user = userService.findUserByJwtToken(jwt);
-        
-        // Actualizar solo los campos permitidos
-        if (request.getFullName() != null && !request.getFullName().isEmpty()) {
-            user.setFullName(request.getFullName());
-        }
-        if (request.getPhoneNumber() != null) {
-            user.setPhoneNumber(request.getPhoneNumber());
-        }
-        if (request.getAddress() != null) {
-            user.setAddress(request.getAddress());
-        }
-        if (request.getProfileImage() != null) {
-            user.setProfileImage(request.getProfileImage());
-        }
-        
-        User updatedUser = userService.updateUser(user);
+        User updatedUser = userService.updateProfile(user.getId(), request);
         return new ResponseEntity<>(updatedUser, HttpStatus.OK);
     }
 
@@ -123,8 +108,7 @@ public class UserController {
             String imageUrl = cloudinaryService.uploadImage(file, "users/avatars");
             
             // Actualizar usuario
-            user.setProfileImage(imageUrl);
-            User updatedUser = userService.updateUser(user);
+            User updatedUser = userService.updateProfileImage(user.getId(), imageUrl);
             
             return ResponseEntity.ok(updatedUser);
             
@@ -0,0 +1,35 @@
+package com.dto;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.model.OrderStatus;
+
+/**
+ * Evento de los streams de pedidos (SSE) de restaurantes y clientes. El id lo asigna OrderEventBus,
+ * crece siempre (también entre reinicios) y lleva el nodo que lo generó, para poder reanudar con
+ * Last-Event-ID. En el JSON va como texto: con los bits del nodo supera 2^53 y un número
+ * se redondearía en JavaScript.
+ */
+public record OrderEvent(
+        @JsonFormat(shape = JsonFormat.Shape.STRING) long id,
+        String type,
+        Long orderId,
+        Long restaurantId,
+        Long customerId,
+        OrderStatus status,
+        OrderStatus previousStatus,
+        Long totalPrice,
+        Date createdAt) {
+
+    public static final String CREATED = "order-created";
+
+    public static final String STATUS_CHANGED = "order-status-changed";
+
+    // status va vacío y previousStatus es el estado en que se canceló
+    public static final String CANCELLED = "order-cancelled";
+
+    public OrderEvent withId(long id) {
+        return new OrderEvent(id, type, orderId, restaurantId, customerId, status, previousStatus, totalPrice, createdAt);
+    }
+}
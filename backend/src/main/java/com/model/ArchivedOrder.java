@@ -0,0 +1,85 @@
+package com.model;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import jakarta.persistence.CascadeType;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pedido terminado movido de {@code orders} por OrderArchiver. Mismas columnas que Order
+ * (el id se conserva); las líneas van en {@code order_item_archive} con el id del pedido.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "orders_archive", indexes = {
+        @Index(name = "idx_orders_archive_restaurant_created", columnList = "restaurant_id, crated_at, id"),
+        @Index(name = "idx_orders_archive_customer_created", columnList = "customer_id, crated_at, id")
+})
+public class ArchivedOrder {
+
+    @Id
+    private Long id;
+
+    @ManyToOne
+    private User customer;
+
+    @ManyToOne
+    private Restaurant restaurant;
+
+    private Long totalAmount;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus orderStatus;
+
+    private Date cratedAt;
+
+    @ManyToOne
+    private Address deliveryAddress;
+
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "order_id")
+    private List<ArchivedOrderItem> items;
+
+    private int totalItem;
+
+    private Long totalPrice;
+
+    private Date archivedAt;
+
+    // Copia sin gestionar para responder con el mismo JSON que los pedidos activos
+    public Order toOrder() {
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomer(customer);
+        order.setRestaurant(restaurant);
+        order.setTotalAmount(totalAmount);
+        order.setOrderStatus(orderStatus);
+        order.setCratedAt(cratedAt);
+        order.setDeliveryAddress(deliveryAddress);
+        List<OrderItem> orderItems = new ArrayList<>();
+        if (items != null) {
+            for (ArchivedOrderItem item : items) {
+                orderItems.add(item.toOrderItem());
+            }
+        }
+        order.setItems(orderItems);
+        order.setTotalItem(totalItem);
+        order.setTotalPrice(totalPrice);
+        return order;
+    }
+}
@@ -0,0 +1,53 @@
+package com.model;
+
+import java.util.List;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "order_item_archive")
+public class ArchivedOrderItem {
+
+    @Id
+    private Long id;
+
+    @ManyToOne
+    private Food food;
+
+    private int quantity;
+
+    private Long totalPrice;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "ingredient_ids", columnDefinition = "bigint[]")
+    private Long[] ingredientIds;
+
+    // Nombres de los pedidos anteriores a los ids, copiados tal cual de order_item
+    @Column(name = "ingredients")
+    private List<String> legacyIngredients;
+
+    public OrderItem toOrderItem() {
+        OrderItem item = new OrderItem();
+        item.setId(id);
+        item.setFood(food);
+        item.setQuantity(quantity);
+        item.setTotalPrice(totalPrice);
+        item.setIngredientIds(ingredientIds);
+        item.setLegacyIngredients(legacyIngredients);
+        return item;
+    }
+}
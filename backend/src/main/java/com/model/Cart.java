@@ -10,6 +10,8 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -21,7 +23,8 @@ import lombok.NoArgsConstructor;
 public class Cart {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_seq")
+    @SequenceGenerator(name = "cart_seq", sequenceName = "cart_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne
@@ -29,6 +32,13 @@ public class Cart {
 
     private Long total;
 
+    // Suma de cantidades de todas las líneas
+    private Integer itemCount = 0;
+
+    // Se incrementa en cada cambio del carrito; control de concurrencia optimista
+    @Version
+    private Long version;
+
     @OneToMany(mappedBy="cart", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<CartItem> items = new ArrayList<>();
 
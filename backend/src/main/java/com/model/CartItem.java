@@ -1,15 +1,31 @@
-
 package com.model;
 
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.TreeSet;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,10 +34,16 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(name = "cart_item", uniqueConstraints = {
+        // Una sola línea por comida y combinación de ingredientes en cada carrito
+        @UniqueConstraint(name = "uk_cart_item_cart_food_ingredients",
+                columnNames = { "cart_id", "food_id", "ingredients_hash" })
+})
 public class CartItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_item_seq")
+    @SequenceGenerator(name = "cart_item_seq", sequenceName = "cart_item_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -33,10 +55,64 @@ public class CartItem {
 
     private int quantity;
 
-    private List<String> ingredients;
+    // Ids de IngredientsItem, ordenados y sin repetir (ver canonicalIngredientIds)
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "ingredient_ids", columnDefinition = "bigint[]")
+    private Long[] ingredientIds;
+
+    // Columna antigua con los nombres; solo se lee para las líneas anteriores a los ids
+    @JsonIgnore
+    @Column(name = "ingredients", insertable = false, updatable = false)
+    private List<String> legacyIngredients;
+
+    @JsonIgnore
+    @Column(name = "ingredients_hash", length = 64)
+    private String ingredientsHash;
 
     private Long totalPrice;
 
-}
+    @PrePersist
+    @PreUpdate
+    void computeIngredientsHash() {
+        ingredientsHash = hashIngredients(ingredientIds);
+    }
+
+    // El cliente sigue recibiendo los nombres de los ingredientes
+    @JsonProperty("ingredients")
+    public List<String> getIngredients() {
+        return IngredientsItem.namesOf(food, ingredientIds, legacyIngredients);
+    }
 
+    /**
+     * Forma canónica de una selección de ingredientes: ids ordenados y sin repetir, así
+     * el orden en que llegan no cambia la línea.
+     */
+    public static Long[] canonicalIngredientIds(Collection<Long> ids) {
+        TreeSet<Long> sorted = new TreeSet<>();
+        if (ids != null) {
+            for (Long id : ids) {
+                if (id != null) {
+                    sorted.add(id);
+                }
+            }
+        }
+        return sorted.toArray(new Long[0]);
+    }
 
+    /**
+     * SHA-256 (hex) de los ids en forma canónica (8 bytes por id).
+     */
+    public static String hashIngredients(Long[] ingredientIds) {
+        Long[] canonical = canonicalIngredientIds(ingredientIds == null ? null : Arrays.asList(ingredientIds));
+        ByteBuffer buffer = ByteBuffer.allocate(canonical.length * Long.BYTES);
+        for (Long id : canonical) {
+            buffer.putLong(id);
+        }
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(buffer.array()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at")
+})
+public class EmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_outbox_seq")
+    @SequenceGenerator(name = "email_outbox_seq", sequenceName = "email_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    private String recipient;
+
+    private String subject;
+
+    // Puede llevar credenciales (enlace de recuperación): se borra al enviarlo o al descartarlo
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    private EmailStatus status = EmailStatus.PENDING;
+
+    private int attempts;
+
+    // Momento a partir del cual el dispatcher puede (re)intentar el envío
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+}
@@ -0,0 +1,12 @@
+package com.model;
+
+public enum EmailStatus {
+    PENDING, // EN COLA, ESPERANDO ENVÍO (O REINTENTO)
+
+    SENDING, // RECLAMADO POR EL DISPATCHER
+
+    SENT, // ENVIADO
+
+    FAILED // DESCARTADO TRAS AGOTAR LOS REINTENTOS
+
+}
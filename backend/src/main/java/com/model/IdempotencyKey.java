@@ -0,0 +1,48 @@
+package com.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+public class IdempotencyKey {
+
+    // "<userId>:<Idempotency-Key>": la misma clave de dos usuarios no choca
+    @Id
+    @Column(length = 300)
+    private String id;
+
+    private Long userId;
+
+    // SHA-256 (hex) del cuerpo de la petición: la clave no se puede reutilizar con otro cuerpo
+    @Column(length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    private IdempotencyStatus status;
+
+    private Integer responseStatus;
+
+    @Column(columnDefinition = "TEXT")
+    private String responseBody;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime expiresAt;
+
+}
@@ -12,6 +12,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -22,7 +23,8 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class IngredientCategory {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ingredient_category_seq")
+    @SequenceGenerator(name = "ingredient_category_seq", sequenceName = "ingredient_category_seq", allocationSize = 50)
     private Long id;
 
     private String name;
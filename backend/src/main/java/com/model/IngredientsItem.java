@@ -1,5 +1,8 @@
 package com.model;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.Entity;
@@ -7,6 +10,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,7 +22,8 @@ import lombok.NoArgsConstructor;
 
 public class IngredientsItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ingredients_item_seq")
+    @SequenceGenerator(name = "ingredients_item_seq", sequenceName = "ingredients_item_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -31,4 +36,48 @@ public class IngredientsItem {
     private Restaurant restaurant;
 
     private boolean inStocke = true;
+
+    /**
+     * Nombres de los ingredientes elegidos en una línea (ids guardados en un array),
+     * resueltos contra los ingredientes de la comida. Las líneas anteriores a los ids
+     * conservan sus nombres en la columna antigua.
+     */
+    public static List<String> namesOf(Food food, Long[] ingredientIds, List<String> legacyNames) {
+        if (ingredientIds == null) {
+            return legacyNames;
+        }
+        List<String> names = new ArrayList<>(ingredientIds.length);
+        if (food == null || food.getIngredients() == null) {
+            return names;
+        }
+        for (Long id : ingredientIds) {
+            for (IngredientsItem ingredient : food.getIngredients()) {
+                if (ingredient.getId().equals(id)) {
+                    names.add(ingredient.getName());
+                    break;
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Ids de los ingredientes de la comida con esos nombres (sin distinguir mayúsculas).
+     * Los nombres que ya no existen se descartan. Sirve para migrar las líneas antiguas.
+     */
+    public static List<Long> idsOf(Food food, List<String> names) {
+        List<Long> ids = new ArrayList<>();
+        if (names == null || food == null || food.getIngredients() == null) {
+            return ids;
+        }
+        for (String name : names) {
+            for (IngredientsItem ingredient : food.getIngredients()) {
+                if (ingredient.getName() != null && ingredient.getName().equalsIgnoreCase(name)) {
+                    ids.add(ingredient.getId());
+                    break;
+                }
+            }
+        }
+        return ids;
+    }
 }
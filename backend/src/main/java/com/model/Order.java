@@ -6,11 +6,15 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -21,11 +25,19 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Listados con cursor: filtro por restaurante/cliente y estado, orden por fecha
+        @Index(name = "idx_orders_restaurant_status_created", columnList = "restaurant_id, order_status, crated_at, id"),
+        @Index(name = "idx_orders_restaurant_created", columnList = "restaurant_id, crated_at, id"),
+        @Index(name = "idx_orders_customer_created", columnList = "customer_id, crated_at, id"),
+        // Búsqueda de pedidos terminados antiguos de OrderArchiver
+        @Index(name = "idx_orders_status_created", columnList = "order_status, crated_at")
+})
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -38,7 +50,8 @@ public class Order {
 
     private Long totalAmount;
 
-    private String orderStatus;
+    @Enumerated(EnumType.STRING)
+    private OrderStatus orderStatus;
 
     private Date cratedAt;
 
@@ -2,11 +2,19 @@ package com.model;
 
 import java.util.List;
 
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,7 +27,8 @@ import lombok.NoArgsConstructor;
 public class OrderItem {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+    @SequenceGenerator(name = "order_item_seq", sequenceName = "order_item_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -29,6 +38,19 @@ public class OrderItem {
 
     private Long totalPrice;
 
-    private List<String> ingredients;
+    // Ids de IngredientsItem copiados de la línea del carrito
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "ingredient_ids", columnDefinition = "bigint[]")
+    private Long[] ingredientIds;
+
+    // Columna antigua con los nombres; solo se lee para los pedidos anteriores a los ids
+    @JsonIgnore
+    @Column(name = "ingredients", insertable = false, updatable = false)
+    private List<String> legacyIngredients;
+
+    @JsonProperty("ingredients")
+    public List<String> getIngredients() {
+        return IngredientsItem.namesOf(food, ingredientIds, legacyIngredients);
+    }
 
 }
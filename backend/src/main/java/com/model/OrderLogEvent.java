@@ -0,0 +1,64 @@
+package com.model;
+
+import java.util.Date;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entrada del registro de eventos de pedidos: solo se inserta, nunca se modifica ni se
+ * borra (tampoco al archivar o cancelar el pedido; solo al borrar su restaurante). Guarda
+ * ids y no relaciones para que el registro sobreviva a los pedidos.
+ */
+@Entity
+@Immutable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "order_event_log", indexes = {
+        @Index(name = "idx_order_event_log_order", columnList = "order_id, id"),
+        @Index(name = "idx_order_event_log_occurred", columnList = "occurred_at, id")
+})
+public class OrderLogEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_event_log_seq")
+    @SequenceGenerator(name = "order_event_log_seq", sequenceName = "order_event_log_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    private Long restaurantId;
+
+    private Long customerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderLogEventType type;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus previousStatus;
+
+    private Long totalPrice;
+
+    @Column(nullable = false)
+    private Date occurredAt;
+
+}
@@ -0,0 +1,7 @@
+package com.model;
+
+public enum OrderLogEventType {
+    CREATED,
+    STATUS_CHANGED,
+    CANCELLED
+}
@@ -0,0 +1,62 @@
+package com.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Estados de un pedido y transiciones permitidas. Solo se avanza: un pedido no vuelve
+ * a un estado anterior (cancelar un pedido lo borra, no es un estado; solo se puede
+ * mientras sigue en PENDING).
+ */
+public enum OrderStatus {
+    PENDING,
+    OUT_FOR_DELIVERY,
+    DELIVERED,
+    COMPLETED;
+
+    private Set<OrderStatus> next;
+
+    static {
+        PENDING.next = EnumSet.of(OUT_FOR_DELIVERY, COMPLETED); // COMPLETED: recogida en el local
+        OUT_FOR_DELIVERY.next = EnumSet.of(DELIVERED);
+        DELIVERED.next = EnumSet.of(COMPLETED);
+        COMPLETED.next = EnumSet.noneOf(OrderStatus.class);
+    }
+
+    public boolean canTransitionTo(OrderStatus target) {
+        return next.contains(target);
+    }
+
+    // Sin transiciones de salida: el pedido ya no cambia (y se puede archivar)
+    public boolean isTerminal() {
+        return next.isEmpty();
+    }
+
+    // Estados en los que el pedido aún se puede cancelar: la cocina no lo ha despachado
+    public static Set<OrderStatus> cancellable() {
+        return EnumSet.of(PENDING);
+    }
+
+    // Estados desde los que se puede llegar a target
+    public static Set<OrderStatus> sourcesOf(OrderStatus target) {
+        Set<OrderStatus> sources = EnumSet.noneOf(OrderStatus.class);
+        for (OrderStatus status : values()) {
+            if (status.canTransitionTo(target)) {
+                sources.add(status);
+            }
+        }
+        return sources;
+    }
+
+    // null si el valor no es un estado válido
+    public static OrderStatus parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
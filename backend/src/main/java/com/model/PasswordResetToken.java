@@ -2,12 +2,16 @@ package com.model;
 
 import java.time.LocalDateTime;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,13 +20,20 @@ import lombok.NoArgsConstructor;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+@Table(name = "password_reset_token", indexes = {
+        @Index(name = "idx_password_reset_token_expiry_date", columnList = "expiry_date")
+})
 public class PasswordResetToken {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "password_reset_token_seq")
+    @SequenceGenerator(name = "password_reset_token_seq", sequenceName = "password_reset_token_seq", allocationSize = 50)
     private Long id;
     
-    private String token;
+    // SHA-256 (hex) del token enviado por email. El token en claro solo está en el cuerpo
+    // del email en email_outbox hasta que se envía (ver EmailOutboxRepository.markSent)
+    @Column(name = "token_hash", length = 64, unique = true)
+    private String tokenHash;
     
     private LocalDateTime expiryDate;
     
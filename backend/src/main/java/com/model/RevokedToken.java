@@ -0,0 +1,32 @@
+package com.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revoked_at")
+})
+public class RevokedToken {
+
+    // Claim "jti" del token revocado
+    @Id
+    private String jti;
+
+    // Expiración original del token: a partir de ahí la fila ya no hace falta
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime revokedAt;
+
+}
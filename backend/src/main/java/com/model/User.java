@@ -3,7 +3,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.dto.RestaurantDto;
-import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.persistence.CascadeType;
@@ -13,6 +12,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -26,7 +26,8 @@ import lombok.NoArgsConstructor;
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     // Use camelCase field name to serialize as `fullName` in JSON
@@ -48,10 +49,6 @@ public class User {
     private String phoneNumber;               // Teléfono del usuario
     private String address;                   // Dirección principal (texto simple)
 
-    @JsonIgnore
-    @OneToMany(cascade = CascadeType.ALL, mappedBy = "customer", orphanRemoval = true)
-    private List<Order> orders = new ArrayList<>();
-
     @ElementCollection
     private List<RestaurantDto> favorites = new ArrayList<>();
 
@@ -0,0 +1,88 @@
+package com.repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.model.ArchivedOrder;
+import com.model.OrderStatus;
+
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    // Borrado en bloque del archivo de un restaurante, como en OrderRepository
+    @Modifying
+    @Query(value = "DELETE FROM order_item_archive i USING orders_archive o "
+            + "WHERE i.order_id = o.id AND o.restaurant_id = :restaurantId", nativeQuery = true)
+    public int deleteItemsByRestaurantId(@Param("restaurantId") Long restaurantId);
+
+    @Modifying
+    @Query(value = "DELETE FROM orders_archive WHERE restaurant_id = :restaurantId", nativeQuery = true)
+    public int deleteByRestaurantId(@Param("restaurantId") Long restaurantId);
+
+    // Mismo keyset que OrderRepository, para continuar el listado en el archivo
+    @Query("SELECT o FROM ArchivedOrder o WHERE o.restaurant.id = :restaurantId "
+            + "AND (:status IS NULL OR o.orderStatus = :status) "
+            + "AND o.cratedAt >= :from AND o.cratedAt < :to "
+            + "AND (o.cratedAt < :cursorAt OR (o.cratedAt = :cursorAt AND o.id < :cursorId)) "
+            + "ORDER BY o.cratedAt DESC, o.id DESC")
+    public List<ArchivedOrder> findRestaurantPage(@Param("restaurantId") Long restaurantId,
+            @Param("status") OrderStatus status, @Param("from") Date from, @Param("to") Date to,
+            @Param("cursorAt") Date cursorAt, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query("SELECT o FROM ArchivedOrder o WHERE o.customer.id = :customerId "
+            + "AND (:status IS NULL OR o.orderStatus = :status) "
+            + "AND o.cratedAt >= :from AND o.cratedAt < :to "
+            + "AND (o.cratedAt < :cursorAt OR (o.cratedAt = :cursorAt AND o.id < :cursorId)) "
+            + "ORDER BY o.cratedAt DESC, o.id DESC")
+    public List<ArchivedOrder> findCustomerPage(@Param("customerId") Long customerId,
+            @Param("status") OrderStatus status, @Param("from") Date from, @Param("to") Date to,
+            @Param("cursorAt") Date cursorAt, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    // Sentencias del traslado de un lote, todas dentro de la transacción de OrderArchiver.
+    // Order.items es un @OneToMany sin mappedBy: las líneas cuelgan de la tabla intermedia
+    // orders_items (order_id, items_id).
+
+    public interface RemovedOrder {
+        Long getRestaurantId();
+
+        String getStatus();
+    }
+
+    // SKIP LOCKED: otra instancia archivando a la vez toma otros pedidos
+    @Query(value = "SELECT id FROM orders WHERE order_status IN (:statuses) AND crated_at < :before "
+            + "ORDER BY crated_at, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    public List<Long> lockArchivable(@Param("statuses") Collection<String> statuses, @Param("before") Date before,
+            @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "INSERT INTO orders_archive (id, customer_id, restaurant_id, total_amount, order_status, "
+            + "crated_at, delivery_address_id, total_item, total_price, archived_at) "
+            + "SELECT id, customer_id, restaurant_id, total_amount, order_status, crated_at, delivery_address_id, "
+            + "total_item, total_price, :archivedAt FROM orders WHERE id IN (:ids)", nativeQuery = true)
+    public int copyOrders(@Param("ids") Collection<Long> ids, @Param("archivedAt") Date archivedAt);
+
+    @Modifying
+    @Query(value = "INSERT INTO order_item_archive (id, order_id, food_id, quantity, total_price, ingredient_ids, "
+            + "ingredients) "
+            + "SELECT i.id, j.order_id, i.food_id, i.quantity, i.total_price, i.ingredient_ids, i.ingredients "
+            + "FROM orders_items j JOIN order_item i ON i.id = j.items_id WHERE j.order_id IN (:ids)",
+            nativeQuery = true)
+    public int copyItems(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "DELETE FROM orders_items WHERE order_id IN (:ids) RETURNING items_id", nativeQuery = true)
+    public List<Long> deleteItemLinks(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_item WHERE id IN (:ids)", nativeQuery = true)
+    public int deleteItems(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "DELETE FROM orders WHERE id IN (:ids) "
+            + "RETURNING restaurant_id AS \"restaurantId\", order_status AS \"status\"", nativeQuery = true)
+    public List<RemovedOrder> deleteOrders(@Param("ids") Collection<Long> ids);
+}
@@ -1,9 +1,27 @@
 package com.repository;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.model.CartItem;
 
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
+    @Query("SELECT i FROM CartItem i JOIN FETCH i.food WHERE i.cart.id = :cartId")
+    List<CartItem> findByCartIdWithFood(@Param("cartId") Long cartId);
+
+    @Modifying
+    @Query("UPDATE CartItem i SET i.quantity = :quantity, i.totalPrice = :totalPrice, "
+            + "i.ingredientIds = :ingredientIds, i.ingredientsHash = :ingredientsHash WHERE i.id = :id")
+    int updateQuantity(@Param("id") Long id, @Param("quantity") int quantity, @Param("totalPrice") Long totalPrice,
+            @Param("ingredientIds") Long[] ingredientIds, @Param("ingredientsHash") String ingredientsHash);
+
+    @Modifying
+    @Query("UPDATE CartItem i SET i.totalPrice = i.quantity * :price WHERE i.food.id = :foodId")
+    int repriceFood(@Param("foodId") Long foodId, @Param("price") Long price);
+
 }
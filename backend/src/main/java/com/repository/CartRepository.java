@@ -1,6 +1,9 @@
 package com.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.model.Cart;
 
@@ -8,4 +11,22 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
 
     public Cart findByCustomerId(Long userId);
 
+    // Solo escribe si nadie cambió el carrito desde la última lectura (0 filas = conflicto)
+    @Modifying
+    @Query("UPDATE Cart c SET c.total = :total, c.itemCount = :itemCount, c.version = :version "
+            + "WHERE c.id = :id AND COALESCE(c.version, 0) = :expectedVersion")
+    int updateSummaryIfVersion(@Param("id") Long id, @Param("total") Long total,
+            @Param("itemCount") Integer itemCount, @Param("version") Long version,
+            @Param("expectedVersion") Long expectedVersion);
+
+    @Query("SELECT COALESCE(c.version, 0) FROM Cart c WHERE c.id = :id")
+    Long findVersionById(@Param("id") Long id);
+
+    // Recalcula el total de los carritos que contienen la comida (tras cambiar su precio)
+    @Modifying
+    @Query(value = "UPDATE cart c SET total = COALESCE((SELECT SUM(i.total_price) FROM cart_item i WHERE i.cart_id = c.id), 0), "
+            + "version = COALESCE(c.version, 0) + 1 "
+            + "WHERE c.id IN (SELECT i.cart_id FROM cart_item i WHERE i.food_id = :foodId)", nativeQuery = true)
+    int recalculateTotalsForFood(@Param("foodId") Long foodId);
+
 }
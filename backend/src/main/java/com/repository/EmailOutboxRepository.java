@@ -0,0 +1,35 @@
+package com.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.model.EmailOutbox;
+import com.model.EmailStatus;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // SKIP LOCKED: varias instancias pueden drenar la cola sin pisarse.
+    // Las filas SENDING con el plazo vencido se recuperan (el envío anterior murió a medias).
+    @Query(value = "SELECT * FROM email_outbox WHERE status IN ('PENDING', 'SENDING') "
+            + "AND next_attempt_at <= :now ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutbox> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    long countByStatusIn(Collection<EmailStatus> statuses);
+
+    // El cuerpo ya no hace falta y puede contener un token de recuperación vigente
+    @Modifying
+    @Query("update EmailOutbox e set e.status = :status, e.sentAt = :sentAt, e.lastError = null, e.body = null "
+            + "where e.id in :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("status") EmailStatus status,
+            @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Query("delete from EmailOutbox e where e.status = :status and e.sentAt < :before")
+    int deleteSentBefore(@Param("status") EmailStatus status, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,48 @@
+package com.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.model.IdempotencyKey;
+import com.model.IdempotencyStatus;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    // Reserva atómica de la clave entre instancias: 1 si la fila es nuestra, 0 si ya existía
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_keys (id, user_id, request_hash, status, started_at, expires_at) "
+            + "VALUES (:id, :userId, :requestHash, 'IN_PROGRESS', :now, :expiresAt) ON CONFLICT (id) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id, @Param("userId") Long userId,
+            @Param("requestHash") String requestHash, @Param("now") LocalDateTime now,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Reutiliza una clave caducada, o una en curso cuyo dueño no terminó a tiempo (instancia caída)
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyKey k SET k.status = :inProgress, k.requestHash = :requestHash, k.startedAt = :now, "
+            + "k.expiresAt = :expiresAt, k.responseStatus = null, k.responseBody = null WHERE k.id = :id "
+            + "AND (k.expiresAt < :now OR (k.status = :inProgress AND k.startedAt < :staleBefore "
+            + "AND k.requestHash = :requestHash))")
+    int takeOver(@Param("id") String id, @Param("requestHash") String requestHash,
+            @Param("inProgress") IdempotencyStatus inProgress, @Param("now") LocalDateTime now,
+            @Param("staleBefore") LocalDateTime staleBefore, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyKey k SET k.status = :status, k.responseStatus = :responseStatus, "
+            + "k.responseBody = :responseBody WHERE k.id = :id")
+    int complete(@Param("id") String id, @Param("status") IdempotencyStatus status,
+            @Param("responseStatus") int responseStatus, @Param("responseBody") String responseBody);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
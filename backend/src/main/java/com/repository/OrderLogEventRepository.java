@@ -0,0 +1,30 @@
+package com.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.model.OrderLogEvent;
+
+public interface OrderLogEventRepository extends JpaRepository<OrderLogEvent, Long> {
+
+    public List<OrderLogEvent> findByOrderIdOrderByOccurredAtAscIdAsc(Long orderId);
+
+    // Reproducción por páginas en orden (occurredAt, id) con keyset (idx_order_event_log_occurred).
+    // Los ids vienen de bloques por instancia, así que solo el instante ordena entre instancias
+    @Query("SELECT e FROM OrderLogEvent e "
+            + "WHERE e.occurredAt > :afterAt OR (e.occurredAt = :afterAt AND e.id > :afterId) "
+            + "ORDER BY e.occurredAt, e.id")
+    public List<OrderLogEvent> findReplayPage(@Param("afterAt") Date afterAt, @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    // Solo al borrar el restaurante: su historia se va con él
+    @Modifying
+    @Query(value = "DELETE FROM order_event_log WHERE restaurant_id = :restaurantId", nativeQuery = true)
+    public int deleteByRestaurantId(@Param("restaurantId") Long restaurantId);
+}
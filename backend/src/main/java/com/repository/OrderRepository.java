@@ -1,10 +1,18 @@
 package com.repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.model.Order;
+import com.model.OrderStatus;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
@@ -12,5 +20,101 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     public List<Order> findByRestaurantId(Long restaurantId);
 
+    // Borrado en bloque de los pedidos de un restaurante, dentro de la transacción que lo
+    // borra: primero las líneas (con sus filas de orders_items, en la misma sentencia) y
+    // después los pedidos, sin cargar ninguna entidad
+    @Modifying
+    @Query(value = "WITH links AS (DELETE FROM orders_items j USING orders o "
+            + "WHERE j.order_id = o.id AND o.restaurant_id = :restaurantId RETURNING j.items_id) "
+            + "DELETE FROM order_item WHERE id IN (SELECT items_id FROM links)", nativeQuery = true)
+    public int deleteItemsByRestaurantId(@Param("restaurantId") Long restaurantId);
 
+    @Modifying
+    @Query(value = "DELETE FROM orders WHERE restaurant_id = :restaurantId", nativeQuery = true)
+    public int deleteByRestaurantId(@Param("restaurantId") Long restaurantId);
+
+    // Keyset: los pedidos anteriores a (cursorAt, cursorId) en orden (cratedAt, id) descendente.
+    // Usa idx_orders_restaurant_status_created; el Pageable solo pone el LIMIT (sin COUNT)
+    @Query("SELECT o FROM Order o WHERE o.restaurant.id = :restaurantId "
+            + "AND (:status IS NULL OR o.orderStatus = :status) "
+            + "AND o.cratedAt >= :from AND o.cratedAt < :to "
+            + "AND (o.cratedAt < :cursorAt OR (o.cratedAt = :cursorAt AND o.id < :cursorId)) "
+            + "ORDER BY o.cratedAt DESC, o.id DESC")
+    public List<Order> findRestaurantPage(@Param("restaurantId") Long restaurantId, @Param("status") OrderStatus status,
+            @Param("from") Date from, @Param("to") Date to, @Param("cursorAt") Date cursorAt,
+            @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query("SELECT o FROM Order o WHERE o.customer.id = :customerId "
+            + "AND (:status IS NULL OR o.orderStatus = :status) "
+            + "AND o.cratedAt >= :from AND o.cratedAt < :to "
+            + "AND (o.cratedAt < :cursorAt OR (o.cratedAt = :cursorAt AND o.id < :cursorId)) "
+            + "ORDER BY o.cratedAt DESC, o.id DESC")
+    public List<Order> findCustomerPage(@Param("customerId") Long customerId, @Param("status") OrderStatus status,
+            @Param("from") Date from, @Param("to") Date to, @Param("cursorAt") Date cursorAt,
+            @Param("cursorId") Long cursorId, Pageable pageable);
+
+    public interface StatusChange {
+        Long getRestaurantId();
+
+        Long getCustomerId();
+
+        String getPreviousStatus();
+
+        Long getTotalPrice();
+    }
+
+    public interface StatusCount {
+        Long getRestaurantId();
+
+        OrderStatus getStatus();
+
+        long getTotal();
+    }
+
+    // Cambia el estado solo si el actual es uno de los permitidos, en una sentencia y sin
+    // cargar el pedido; devuelve el restaurante, el cliente, el estado anterior y el total
+    // (vacío si no cambió)
+    @Transactional
+    @Query(value = "WITH previous AS (SELECT id, restaurant_id, order_status FROM orders WHERE id = :id FOR UPDATE) "
+            + "UPDATE orders o SET order_status = :target FROM previous "
+            + "WHERE o.id = previous.id AND previous.order_status IN (:sources) "
+            + "RETURNING previous.restaurant_id AS \"restaurantId\", o.customer_id AS \"customerId\", "
+            + "previous.order_status AS \"previousStatus\", o.total_price AS \"totalPrice\"",
+            nativeQuery = true)
+    public List<StatusChange> transitionStatus(@Param("id") Long id, @Param("target") String target,
+            @Param("sources") Collection<String> sources);
+
+    public interface CancelledOrder {
+        Long getRestaurantId();
+
+        Long getCustomerId();
+
+        String getStatus();
+
+        Long getTotalPrice();
+
+        Date getCratedAt();
+    }
+
+    // Cancela (borra) el pedido con sus líneas solo si su estado es uno de los cancelables,
+    // en una sentencia; devuelve lo borrado (vacío si no se canceló)
+    @Transactional
+    @Query(value = "WITH target AS (SELECT id FROM orders WHERE id = :id AND order_status IN (:statuses) FOR UPDATE), "
+            + "links AS (DELETE FROM orders_items WHERE order_id IN (SELECT id FROM target) RETURNING items_id), "
+            + "items AS (DELETE FROM order_item WHERE id IN (SELECT items_id FROM links)) "
+            + "DELETE FROM orders o USING target WHERE o.id = target.id "
+            + "RETURNING o.restaurant_id AS \"restaurantId\", o.customer_id AS \"customerId\", "
+            + "o.order_status AS \"status\", o.total_price AS \"totalPrice\", o.crated_at AS \"cratedAt\"",
+            nativeQuery = true)
+    public List<CancelledOrder> deleteIfCancellable(@Param("id") Long id, @Param("statuses") Collection<String> statuses);
+
+    @Query("SELECT o.restaurant.id FROM Order o WHERE o.id = :id")
+    public Long findRestaurantIdById(@Param("id") Long id);
+
+    @Query("SELECT o.orderStatus FROM Order o WHERE o.id = :id")
+    public OrderStatus findStatusById(@Param("id") Long id);
+
+    @Query("SELECT o.restaurant.id AS restaurantId, o.orderStatus AS status, COUNT(o) AS total FROM Order o "
+            + "WHERE o.restaurant IS NOT NULL AND o.orderStatus IS NOT NULL GROUP BY o.restaurant.id, o.orderStatus")
+    public List<StatusCount> countByRestaurantAndStatus();
 }
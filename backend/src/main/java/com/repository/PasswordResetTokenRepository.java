@@ -1,15 +1,28 @@
 package com.repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.model.PasswordResetToken;
 
 public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
 
-    Optional<PasswordResetToken> findByToken(String token);
+    // Búsqueda por el índice único de token_hash
+    Optional<PasswordResetToken> findByTokenHash(String tokenHash);
 
-    @org.springframework.transaction.annotation.Transactional
+    @Transactional
     void deleteByUserId(Long userId);
+
+    // Borra como máximo "limit" tokens expirados por llamada para no bloquear la tabla mucho tiempo
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM password_reset_token WHERE id IN ("
+            + "SELECT id FROM password_reset_token WHERE expiry_date < :now LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
 }
@@ -0,0 +1,25 @@
+package com.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.model.RevokedToken;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    List<RevokedToken> findByExpiresAtAfter(LocalDateTime now);
+
+    // Revocaciones hechas por otras instancias desde la última sincronización
+    List<RevokedToken> findByRevokedAtAfterAndExpiresAtAfter(LocalDateTime since, LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken t WHERE t.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,10 +1,22 @@
 package com.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.model.User;
 
 public interface  UserRepository extends JpaRepository<User, Long>{
 
     public User findByEmail(String username); //buscar usuario por email
+
+    // Reemplaza el hash solo si sigue siendo el leído (rehash tras login)
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newPassword WHERE u.email = :email AND u.password = :currentPassword")
+    int updatePasswordIfUnchanged(@Param("email") String email,
+                                  @Param("currentPassword") String currentPassword,
+                                  @Param("newPassword") String newPassword);
 }
@@ -9,6 +9,8 @@ public class AddCartItemRequest {
 
     private Long foodId;
     private int quantity;
+    private List<Long> ingredientIds;
+    // Nombres: solo para clientes que todavía no envían ids
     private List<String> ingredients;
 
 }
@@ -0,0 +1,19 @@
+package com.request;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class CartOperationRequest {
+
+    // "add" (foodId, quantity, ingredientIds), "update" (cartItemId, quantity) o "remove" (cartItemId)
+    private String op;
+    private Long foodId;
+    private Long cartItemId;
+    private int quantity;
+    private List<Long> ingredientIds;
+    // Nombres: solo para clientes que todavía no envían ids
+    private List<String> ingredients;
+
+}
@@ -0,0 +1,14 @@
+package com.request;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class PatchCartRequest {
+
+    // Se aplican en orden, todas o ninguna
+    private List<CartOperationRequest> operations = new ArrayList<>();
+
+}
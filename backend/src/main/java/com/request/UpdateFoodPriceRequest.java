@@ -0,0 +1,10 @@
+package com.request;
+
+import lombok.Data;
+
+@Data
+public class UpdateFoodPriceRequest {
+
+    private Long price;
+
+}
@@ -0,0 +1,17 @@
+package com.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class IdempotentResponse {
+
+    private int status;
+
+    // JSON tal cual se devolvió la primera vez
+    private String body;
+
+    // true si es la respuesta guardada de una petición anterior con la misma clave
+    private boolean replayed;
+}
@@ -0,0 +1,18 @@
+package com.response;
+
+import java.util.List;
+
+import com.model.Order;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class OrderPage {
+
+    private List<Order> orders;
+
+    // Cursor para pedir la página siguiente; null si no hay más pedidos
+    private String nextCursor;
+}
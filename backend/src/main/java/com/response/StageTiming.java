@@ -0,0 +1,14 @@
+package com.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class StageTiming {
+
+    // Pedidos que salieron de este estado
+    private long count;
+
+    private double averageSeconds;
+}
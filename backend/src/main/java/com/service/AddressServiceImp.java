@@ -21,25 +21,26 @@ public class AddressServiceImp implements AddressService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserIdentityCache userIdentityCache;
+
     @Override
     public List<Address> getAddressesForUserByEmail(String userEmail) throws Exception {
-        User user = userRepository.findByEmail(userEmail);
-        if (user == null) {
-            throw new Exception("User not found");
-        }
+        User user = userService.findUserByEmail(userEmail);
         return addressRepository.findByCustomerId(user.getId());
     }
 
     @Override
     @Transactional
     public Address addAddressForUserByEmail(String userEmail, Address address) throws Exception {
-        User user = userRepository.findByEmail(userEmail);
-        if (user == null) {
-            throw new Exception("User not found");
-        }
+        User user = userService.findUserByEmail(userEmail);
 
-        // ✅ Establecer el usuario en la dirección
-        address.setCustomer(user);
+        // ✅ Establecer el usuario en la dirección (referencia gestionada: el usuario
+        // puede venir desconectado de la caché y la relación hace cascade PERSIST)
+        address.setCustomer(userRepository.getReferenceById(user.getId()));
         
         // ✅ Si es la primera dirección, hacerla default
         List<Address> existingAddresses = addressRepository.findByCustomerId(user.getId());
@@ -57,16 +58,15 @@ public class AddressServiceImp implements AddressService {
             }
         }
 
-        return addressRepository.save(address);
+        Address saved = addressRepository.save(address);
+        userIdentityCache.evict(userEmail);
+        return saved;
     }
 
     @Override
     @Transactional
     public Address updateAddressForUserByEmail(String userEmail, Long addressId, Address payload) throws Exception {
-        User user = userRepository.findByEmail(userEmail);
-        if (user == null) {
-            throw new Exception("User not found");
-        }
+        User user = userService.findUserByEmail(userEmail);
 
         Address existing = addressRepository.findByIdAndCustomerId(addressId, user.getId())
                 .orElseThrow(() -> new Exception("Address not found"));
@@ -89,29 +89,26 @@ public class AddressServiceImp implements AddressService {
             existing.setIsDefault(false);
         }
 
-        return addressRepository.save(existing);
+        Address saved = addressRepository.save(existing);
+        userIdentityCache.evict(userEmail);
+        return saved;
     }
 
     @Override
     public void deleteAddressForUserByEmail(String userEmail, Long addressId) throws Exception {
-        User user = userRepository.findByEmail(userEmail);
-        if (user == null) {
-            throw new Exception("User not found");
-        }
+        User user = userService.findUserByEmail(userEmail);
 
         Address existing = addressRepository.findByIdAndCustomerId(addressId, user.getId())
                 .orElseThrow(() -> new Exception("Address not found"));
 
         addressRepository.delete(existing);
+        userIdentityCache.evict(userEmail);
     }
 
     @Override
     @Transactional
     public Address setDefaultAddressForUserByEmail(String userEmail, Long addressId) throws Exception {
-        User user = userRepository.findByEmail(userEmail);
-        if (user == null) {
-            throw new Exception("User not found");
-        }
+        User user = userService.findUserByEmail(userEmail);
 
         Address existing = addressRepository.findByIdAndCustomerId(addressId, user.getId())
                 .orElseThrow(() -> new Exception("Address not found"));
@@ -127,7 +124,9 @@ public class AddressServiceImp implements AddressService {
         }
 
         existing.setIsDefault(true);
-        return addressRepository.save(existing);
+        Address saved = addressRepository.save(existing);
+        userIdentityCache.evict(userEmail);
+        return saved;
     }
 
 }
@@ -1,13 +1,16 @@
 package com.service;
 
+import java.util.List;
+
 import com.model.Cart;
 import com.model.CartItem;
 import com.request.AddCartItemRequest;
+import com.request.CartOperationRequest;
 
 public interface CartService {
     public CartItem addItemToCart(AddCartItemRequest req, String jwt) throws Exception;
 
-    public CartItem updateCartItemQuantity(Long cartItemId, int quantity) throws Exception;
+    public CartItem updateCartItemQuantity(Long cartItemId, int quantity, Long userId) throws Exception;
 
     public Cart removeItemFromCart(Long cartItemId, String jwt) throws Exception;
 
@@ -19,4 +22,10 @@ public interface CartService {
 
     public Cart clearCart(Long userId) throws Exception;
 
+    // Aplica en orden una lista de altas, cambios de cantidad y bajas sobre una sola carga del carrito
+    public Cart applyOperations(Long userId, List<CartOperationRequest> operations) throws Exception;
+
+    // Escribe en la BD los cambios del carrito que aún están solo en memoria
+    public void flushCart(Long userId) throws Exception;
+
 }
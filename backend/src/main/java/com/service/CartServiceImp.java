@@ -1,100 +1,126 @@
 package com.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import com.model.Cart;
 import com.model.CartItem;
 import com.model.Food;
+import com.model.IngredientsItem;
 import com.model.User;
 import com.repository.CartItemRepository;
 import com.repository.CartRepository;
+import com.repository.FoodRepository;
 import com.request.AddCartItemRequest;
+import com.request.CartOperationRequest;
 
+/**
+ * Las ediciones del carrito se aplican sobre {@link CartSessionStore}; los Cart y
+ * CartItem que devuelve este servicio son vistas de solo lectura construidas a partir
+ * del estado en memoria y no deben guardarse con los repositorios.
+ */
 @Service
 public class CartServiceImp implements CartService {
 
+    private static final int MAX_OPERATIONS = 100;
+
     @Autowired
     private CartRepository cartRepository;
 
     @Autowired
     private CartItemRepository cartItemRepository;
 
+    @Autowired
+    private FoodRepository foodRepository;
+
     @Autowired
     private UserService userService;
 
     @Autowired
     private FoodService foodService;
 
+    @Autowired
+    private CartSessionStore cartSessionStore;
+
     @Override
     public CartItem addItemToCart(AddCartItemRequest req, String jwt) throws Exception {
+        if (req.getQuantity() <= 0) {
+            throw new Exception("Quantity must be positive");
+        }
         User user = userService.findUserByJwtToken(jwt);
 
         Food food = foodService.findFoodById(req.getFoodId());
+        Long[] ingredientIds = resolveIngredientIds(food, req.getIngredientIds(), req.getIngredients());
 
-        Cart cart  = cartRepository.findByCustomerId(user.getId());
-
-        for(CartItem cartItem : cart.getItems()) {
-            if(cartItem.getFood().equals(food)) {
-               int newQuantity = cartItem.getQuantity() + req.getQuantity(); // Sumamos la cantidad existente con la nueva
-               return updateCartItemQuantity(cartItem.getId(), newQuantity);
+        return cartSessionStore.execute(user.getId(), session -> {
+            CartSession.Line line = session.findLine(food.getId(), CartItem.hashIngredients(ingredientIds));
+            if (line != null) {
+                int newQuantity = line.getQuantity() + req.getQuantity(); // Sumamos la cantidad existente con la nueva
+                session.updateQuantity(line, newQuantity);
+                return toCartItem(line, food, null);
             }
-        }
 
-        CartItem newCartItem = new CartItem();
-        newCartItem.setFood(food);
-        newCartItem.setQuantity(req.getQuantity());
-        newCartItem.setCart(cart);
-        newCartItem.setIngredients(req.getIngredients());
-        newCartItem.setTotalPrice(req.getQuantity() * food.getPrice());
-        CartItem savedCartItem = cartItemRepository.save(newCartItem);
-        cart.getItems().add(savedCartItem);
-        return savedCartItem;
+            // La línea nueva se inserta ya: el cliente necesita su id para editarla
+            CartItem newCartItem = newCartItem(session, food, req.getQuantity(), ingredientIds);
+            CartSession.Line added = insertLines(session, List.of(newCartItem)).get(0);
+            return toCartItem(added, food, null);
+        });
     }
 
     @Override
-    public CartItem updateCartItemQuantity(Long cartItemId, int quantity) throws Exception {
-
-        Optional<CartItem> cartItemOptional = cartItemRepository.findById(cartItemId);
-        if(cartItemOptional.isEmpty()){
-            throw new Exception("Cart item not found");
+    public CartItem updateCartItemQuantity(Long cartItemId, int quantity, Long userId) throws Exception {
+        // Como en las operaciones en lote: para quitar una línea está el endpoint de borrar
+        if (quantity <= 0) {
+            throw new Exception("Quantity must be positive, use remove");
         }
-        CartItem item = cartItemOptional.get();
-        item.setQuantity(quantity);
-
-        
-        item.setTotalPrice(item.getFood().getPrice() * quantity); // Actualizamos el precio total basado en la nueva cantidad
-        
-        return cartItemRepository.save(item);
+        return cartSessionStore.execute(userId, session -> {
+            CartSession.Line line = session.findByItem(cartItemId);
+            if (line == null) {
+                throw new Exception("Cart item not found");
+            }
+            session.updateQuantity(line, quantity); // El precio total se recalcula con la nueva cantidad
+            loadFoods(List.of(line));
+            return toCartItem(line, line.getFood(), null);
+        });
     }
 
-
     @Override
     public Cart removeItemFromCart(Long cartItemId, String jwt) throws Exception {
 
         User user = userService.findUserByJwtToken(jwt);
 
-        Cart cart  = cartRepository.findByCustomerId(user.getId());
-
-        Optional<CartItem> cartItemOptional = cartItemRepository.findById(cartItemId);
-        if(cartItemOptional.isEmpty()){
-            throw new Exception("Cart item not found");
-        }
-
-        CartItem item = cartItemOptional.get();
-        cart.getItems().remove(item);
-        //cartItemRepository.delete(item);
-        return cartRepository.save(cart);
+        return cartSessionStore.execute(user.getId(), session -> {
+            CartSession.Line line = session.findByItem(cartItemId);
+            if (line == null) {
+                throw new Exception("Cart item not found");
+            }
+            session.remove(line);
+            return toCart(session);
+        });
     }
 
     @Override
     public Long calculateTotalCart(Cart cart) throws Exception {
 
+        // Las vistas de CartSessionStore ya traen el total mantenido
+        if (cart.getTotal() != null) {
+            return cart.getTotal();
+        }
+        // Usa el total de cada línea: no hace falta cargar la comida de cada item
         Long total = 0L;
-        for(CartItem cartItem : cart.getItems()) {
-            total += cartItem.getFood().getPrice() * cartItem.getQuantity();
+        for (CartItem cartItem : cart.getItems()) {
+            total += cartItem.getTotalPrice();
         }
 
         return total;
@@ -103,7 +129,7 @@ public class CartServiceImp implements CartService {
     @Override
     public Cart findCartById(Long id) throws Exception {
         Optional<Cart> optionalCart = cartRepository.findById(id);
-        if(optionalCart.isEmpty()){
+        if (optionalCart.isEmpty()) {
             throw new Exception("Cart not found with id: " + id);
         }
         return optionalCart.get();
@@ -111,19 +137,247 @@ public class CartServiceImp implements CartService {
 
     @Override
     public Cart findCartByUserId(Long userId) throws Exception {
-        //User user = userService.findUserByJwtToken(jwt);
-        Cart cart = cartRepository.findByCustomerId(userId);
-        cart.setTotal(calculateTotalCart(cart));
-        return cart;
+        return cartSessionStore.execute(userId, this::toCart);
     }
 
     @Override
     public Cart clearCart(Long userId) throws Exception {
-        //User user =  userService.findUserByJwtToken(userId);
-        Cart cart = findCartByUserId(userId);
-        
-        cart.getItems().clear();
-        return cartRepository.save(cart);
+        return cartSessionStore.execute(userId, session -> {
+            session.clear();
+            return toCart(session);
+        });
+    }
+
+    @Override
+    public Cart applyOperations(Long userId, List<CartOperationRequest> operations) throws Exception {
+        if (operations == null || operations.isEmpty()) {
+            return findCartByUserId(userId);
+        }
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new Exception("Too many cart operations, max " + MAX_OPERATIONS);
+        }
+
+        // Las comidas de todas las altas se leen en una sola consulta
+        Set<Long> foodIds = new HashSet<>();
+        for (CartOperationRequest operation : operations) {
+            if ("add".equalsIgnoreCase(operation.getOp()) && operation.getFoodId() != null) {
+                foodIds.add(operation.getFoodId());
+            }
+        }
+        Map<Long, Food> foods = new HashMap<>();
+        for (Food food : foodRepository.findAllById(foodIds)) {
+            foods.put(food.getId(), food);
+        }
+
+        return cartSessionStore.execute(userId, session -> {
+            // Se valida todo antes de tocar el carrito: o se aplican todas o ninguna
+            List<Long[]> ingredientIds = validateOperations(session, operations, foods);
+
+            // Altas de líneas que aún no están en el carrito, agrupadas por comida + ingredientes
+            Map<String, CartItem> newItems = new LinkedHashMap<>();
+            for (int i = 0; i < operations.size(); i++) {
+                CartOperationRequest operation = operations.get(i);
+                switch (operation.getOp().toLowerCase()) {
+                    case "add" -> {
+                        String ingredientsHash = CartItem.hashIngredients(ingredientIds.get(i));
+                        String key = operation.getFoodId() + ":" + ingredientsHash;
+                        CartSession.Line line = session.findLine(operation.getFoodId(), ingredientsHash);
+                        CartItem pending = newItems.get(key);
+                        if (line != null) {
+                            session.updateQuantity(line, line.getQuantity() + operation.getQuantity());
+                        } else if (pending != null) {
+                            pending.setQuantity(pending.getQuantity() + operation.getQuantity());
+                        } else {
+                            newItems.put(key, newCartItem(session, foods.get(operation.getFoodId()),
+                                    operation.getQuantity(), ingredientIds.get(i)));
+                        }
+                    }
+                    case "update" -> session.updateQuantity(session.findByItem(operation.getCartItemId()),
+                            operation.getQuantity());
+                    default -> session.remove(session.findByItem(operation.getCartItemId()));
+                }
+            }
+
+            if (!newItems.isEmpty()) {
+                insertLines(session, new ArrayList<>(newItems.values()));
+            }
+            return toCart(session);
+        });
+    }
+
+    private CartItem newCartItem(CartSession session, Food food, int quantity, Long[] ingredientIds) {
+        long price = food.getPrice() == null ? 0 : food.getPrice();
+        CartItem item = new CartItem();
+        item.setFood(food);
+        item.setQuantity(quantity);
+        item.setCart(cartRepository.getReferenceById(session.getCartId()));
+        item.setIngredientIds(ingredientIds);
+        item.setTotalPrice(quantity * price);
+        return item;
+    }
+
+    /**
+     * Inserta las líneas nuevas en una sola transacción (saveAll) y las añade a la sesión.
+     * Si otro escritor ya insertó la misma comida + ingredientes (restricción única), se
+     * recarga el carrito y la cantidad se suma a la línea existente en lugar de duplicarla.
+     */
+    private List<CartSession.Line> insertLines(CartSession session, List<CartItem> items) {
+        List<CartSession.Line> lines = new ArrayList<>(items.size());
+        try {
+            for (CartItem saved : cartItemRepository.saveAll(items)) {
+                lines.add(addSavedLine(session, saved));
+            }
+            return lines;
+        } catch (DataIntegrityViolationException e) {
+            cartSessionStore.refresh(session);
+        }
+
+        for (CartItem item : items) {
+            String ingredientsHash = CartItem.hashIngredients(item.getIngredientIds());
+            CartSession.Line existing = session.findLine(item.getFood().getId(), ingredientsHash);
+            if (existing != null) {
+                session.updateQuantity(existing, existing.getQuantity() + item.getQuantity());
+                lines.add(existing);
+            } else {
+                // La entidad del intento fallido puede tener ya un id asignado: se usa una copia
+                CartItem copy = newCartItem(session, item.getFood(), item.getQuantity(), item.getIngredientIds());
+                lines.add(addSavedLine(session, cartItemRepository.save(copy)));
+            }
+        }
+        return lines;
+    }
+
+    private CartSession.Line addSavedLine(CartSession session, CartItem saved) {
+        CartSession.Line line = CartSession.Line.of(saved);
+        session.addLine(line);
+        return line;
+    }
+
+    /**
+     * Ids de ingredientes de la línea en forma canónica. Se aceptan ids o, de clientes
+     * antiguos, nombres; ambos tienen que ser ingredientes de la comida.
+     */
+    private Long[] resolveIngredientIds(Food food, List<Long> ids, List<String> names) throws Exception {
+        List<Long> resolved = new ArrayList<>();
+        if (ids != null) {
+            for (Long id : ids) {
+                boolean found = false;
+                for (IngredientsItem ingredient : food.getIngredients()) {
+                    if (ingredient.getId().equals(id)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    throw new Exception("Ingredient " + id + " not available for food " + food.getId());
+                }
+                resolved.add(id);
+            }
+        } else if (names != null) {
+            List<Long> byName = IngredientsItem.idsOf(food, names);
+            if (byName.size() != names.size()) {
+                throw new Exception("Unknown ingredient for food " + food.getId());
+            }
+            resolved.addAll(byName);
+        }
+        return CartItem.canonicalIngredientIds(resolved);
+    }
+
+    // Devuelve los ingredientes resueltos de cada alta (null en el resto de operaciones)
+    private List<Long[]> validateOperations(CartSession session, List<CartOperationRequest> operations,
+            Map<Long, Food> foods) throws Exception {
+        List<Long[]> ingredientIds = new ArrayList<>(operations.size());
+        Set<Long> removed = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            CartOperationRequest operation = operations.get(i);
+            String op = operation.getOp() == null ? "" : operation.getOp().toLowerCase();
+            switch (op) {
+                case "add" -> {
+                    if (!foods.containsKey(operation.getFoodId())) {
+                        throw new Exception("Operation " + i + ": food not exist");
+                    }
+                    if (operation.getQuantity() <= 0) {
+                        throw new Exception("Operation " + i + ": quantity must be positive");
+                    }
+                    try {
+                        ingredientIds.add(resolveIngredientIds(foods.get(operation.getFoodId()),
+                                operation.getIngredientIds(), operation.getIngredients()));
+                    } catch (Exception e) {
+                        throw new Exception("Operation " + i + ": " + e.getMessage());
+                    }
+                }
+                case "update", "remove" -> {
+                    Long itemId = operation.getCartItemId();
+                    if (itemId == null || session.findByItem(itemId) == null || removed.contains(itemId)) {
+                        throw new Exception("Operation " + i + ": cart item not found");
+                    }
+                    if (op.equals("remove")) {
+                        removed.add(itemId);
+                    } else if (operation.getQuantity() <= 0) {
+                        throw new Exception("Operation " + i + ": quantity must be positive, use remove");
+                    }
+                    ingredientIds.add(null);
+                }
+                default -> throw new Exception("Operation " + i + ": unknown op " + operation.getOp());
+            }
+        }
+        return ingredientIds;
+    }
+
+    @Override
+    public void flushCart(Long userId) throws Exception {
+        cartSessionStore.flush(userId);
+    }
+
+    // Vista del carrito: las comidas salen de las líneas; solo se consulta la BD por las
+    // que cambiaron de precio desde que se leyeron
+    private Cart toCart(CartSession session) {
+        Cart cart = new Cart();
+        cart.setId(session.getCartId());
+        cart.setCustomer(session.getCustomer());
+
+        loadFoods(session.lines());
+        for (CartSession.Line line : session.lines()) {
+            cart.getItems().add(toCartItem(line, line.getFood(), cart));
+        }
+        // Total, unidades y versión se mantienen en cada mutación: leerlos es O(1)
+        cart.setTotal(session.getTotal());
+        cart.setItemCount(session.getItemCount());
+        cart.setVersion(session.getVersion());
+        return cart;
+    }
+
+    // Relee de una vez las comidas de las líneas sin comida válida y las deja en ellas
+    private void loadFoods(Collection<CartSession.Line> lines) {
+        Set<Long> stale = new HashSet<>();
+        for (CartSession.Line line : lines) {
+            if (line.getFood() == null) {
+                stale.add(line.getFoodId());
+            }
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+        Map<Long, Food> foods = new HashMap<>();
+        for (Food food : foodRepository.findAllById(stale)) {
+            foods.put(food.getId(), food);
+        }
+        for (CartSession.Line line : lines) {
+            if (stale.contains(line.getFoodId())) {
+                line.setFood(foods.get(line.getFoodId()));
+            }
+        }
+    }
+
+    private CartItem toCartItem(CartSession.Line line, Food food, Cart cart) {
+        CartItem item = new CartItem();
+        item.setId(line.getItemId());
+        item.setCart(cart);
+        item.setFood(food);
+        item.setQuantity(line.getQuantity());
+        item.setIngredientIds(line.getIngredientIds());
+        item.setTotalPrice(line.getTotalPrice());
+        return item;
     }
 
 }
@@ -0,0 +1,407 @@
+package com.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.Hibernate;
+
+import com.model.CartItem;
+import com.model.Food;
+import com.model.IngredientCategory;
+import com.model.IngredientsItem;
+import com.model.User;
+
+/**
+ * Estado en memoria del carrito de un usuario.
+ *
+ * Las líneas se indexan por comida + ingredientes (para sumar cantidades al añadir) y
+ * por id de CartItem (para los endpoints de actualizar y quitar), así que cada mutación
+ * es O(1). El total, el número de unidades y la versión se actualizan en la misma
+ * operación que cada mutación, de modo que leerlos nunca recorre las líneas.
+ * Los cambios de cantidad y los borrados quedan pendientes hasta el siguiente flush de
+ * {@link CartSessionStore}. No es thread-safe: solo se usa bajo el lock del almacén.
+ */
+public class CartSession {
+
+    private final Long cartId;
+
+    private final User customer;
+
+    private final Map<LineKey, Line> byKey = new LinkedHashMap<>();
+
+    private final Map<Long, Line> byItem = new HashMap<>();
+
+    // Pendiente de escribir en la BD
+    private final Set<Line> dirtyLines = new LinkedHashSet<>();
+
+    private final List<Long> removedItemIds = new ArrayList<>();
+
+    private long total;
+
+    private int itemCount;
+
+    private long version;
+
+    // Versión de la fila del carrito en la BD según la última lectura o escritura
+    private long persistedVersion;
+
+    // Total, unidades o versión pendientes de escribir en la fila del carrito
+    private boolean summaryDirty;
+
+    private long lastAccess = System.currentTimeMillis();
+
+    CartSession(Long cartId, User customer, long version) {
+        this.cartId = cartId;
+        this.customer = customer;
+        this.version = version;
+        this.persistedVersion = version;
+    }
+
+    public Long getCartId() {
+        return cartId;
+    }
+
+    public User getCustomer() {
+        return customer;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Collection<Line> lines() {
+        return byKey.values();
+    }
+
+    public Line findLine(Long foodId, String ingredientsHash) {
+        return byKey.get(new LineKey(foodId, ingredientsHash));
+    }
+
+    public Line findByItem(Long cartItemId) {
+        return byItem.get(cartItemId);
+    }
+
+    // Línea ya insertada en la BD (tiene id): solo cambia el resumen del carrito
+    public void addLine(Line line) {
+        restore(line);
+        changed();
+    }
+
+    public void updateQuantity(Line line, int quantity) {
+        total -= line.totalPrice;
+        itemCount -= line.quantity;
+        line.quantity = quantity;
+        line.totalPrice = line.unitPrice * quantity;
+        total += line.totalPrice;
+        itemCount += quantity;
+        dirtyLines.add(line);
+        changed();
+    }
+
+    public void remove(Line line) {
+        byKey.remove(line.key());
+        byItem.remove(line.itemId);
+        dirtyLines.remove(line);
+        removedItemIds.add(line.itemId);
+        total -= line.totalPrice;
+        itemCount -= line.quantity;
+        changed();
+    }
+
+    public void clear() {
+        for (Line line : byItem.values()) {
+            removedItemIds.add(line.itemId);
+        }
+        byKey.clear();
+        byItem.clear();
+        dirtyLines.clear();
+        total = 0;
+        itemCount = 0;
+        changed();
+    }
+
+    /**
+     * Aplica el nuevo precio de una comida a sus líneas, si está en el carrito.
+     *
+     * @return true si el carrito ha cambiado
+     */
+    public boolean reprice(Long foodId, long unitPrice) {
+        boolean changed = false;
+        for (Line line : byKey.values()) {
+            if (line.foodId.equals(foodId) && line.unitPrice != unitPrice) {
+                total -= line.totalPrice;
+                line.unitPrice = unitPrice;
+                line.totalPrice = unitPrice * line.quantity;
+                total += line.totalPrice;
+                dirtyLines.add(line);
+                changed = true;
+            }
+        }
+        if (changed) {
+            changed();
+        }
+        return changed;
+    }
+
+    /**
+     * Rehace la sesión sobre el estado actual de la BD (otro escritor cambió el carrito)
+     * conservando lo pendiente: los cambios de cantidad se aplican como incrementos sobre
+     * la cantidad de la BD y los borrados se mantienen. Las líneas borradas en la BD por el
+     * otro escritor se descartan.
+     */
+    void rebase(List<CartItem> items, long dbVersion) {
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (Line line : dirtyLines) {
+            deltas.put(line.itemId, line.quantity - line.baseQuantity);
+        }
+        Set<Long> removed = new LinkedHashSet<>(removedItemIds);
+
+        byKey.clear();
+        byItem.clear();
+        dirtyLines.clear();
+        removedItemIds.clear();
+        total = 0;
+        itemCount = 0;
+
+        for (CartItem item : items) {
+            restore(Line.of(item));
+        }
+        for (Long itemId : removed) {
+            Line line = byItem.get(itemId);
+            if (line != null) {
+                remove(line);
+            }
+        }
+        for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+            Line line = byItem.get(delta.getKey());
+            if (line == null || delta.getValue() == 0) {
+                continue;
+            }
+            int quantity = line.quantity + delta.getValue();
+            if (quantity > 0) {
+                updateQuantity(line, quantity);
+            } else {
+                remove(line);
+            }
+        }
+
+        persistedVersion = dbVersion;
+        version = Math.max(version, dbVersion) + 1;
+        summaryDirty = true;
+    }
+
+    // Línea leída de la BD al cargar el carrito. Si ya hay una con la misma comida e
+    // ingredientes (filas duplicadas de antes de la restricción única) se fusionan.
+    // Las líneas que solo tenían nombres de ingredientes se reescriben con sus ids.
+    void restore(Line line) {
+        Line existing = byKey.get(line.key());
+        if (existing != null) {
+            updateQuantity(existing, existing.quantity + line.quantity);
+            removedItemIds.add(line.itemId);
+            return;
+        }
+        byKey.put(line.key(), line);
+        byItem.put(line.itemId, line);
+        total += line.totalPrice;
+        itemCount += line.quantity;
+        if (line.migrated) {
+            dirtyLines.add(line);
+        }
+    }
+
+    private void changed() {
+        version++;
+        summaryDirty = true;
+    }
+
+    // El total guardado en la fila no coincide con las líneas: se reescribe en el próximo flush
+    void markSummaryDirty() {
+        summaryDirty = true;
+    }
+
+    boolean isDirty() {
+        return summaryDirty || !dirtyLines.isEmpty() || !removedItemIds.isEmpty();
+    }
+
+    Collection<Line> dirtyLines() {
+        return dirtyLines;
+    }
+
+    List<Long> removedItemIds() {
+        return removedItemIds;
+    }
+
+    long getPersistedVersion() {
+        return persistedVersion;
+    }
+
+    void markClean() {
+        for (Line line : dirtyLines) {
+            line.baseQuantity = line.quantity;
+        }
+        dirtyLines.clear();
+        removedItemIds.clear();
+        summaryDirty = false;
+        persistedVersion = version;
+    }
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    private record LineKey(Long foodId, String ingredientsHash) {
+    }
+
+    /**
+     * Una línea del carrito (un CartItem). El precio unitario se fija al cargar o añadir
+     * y solo cambia con {@link CartSession#reprice(Long, long)}.
+     *
+     * Guarda la comida con la que se leyó para servir las vistas del carrito sin volver a
+     * la BD; si su precio ya no coincide con el de la línea (la comida cambió de precio)
+     * la vista la recarga.
+     */
+    public static class Line {
+
+        private final Long itemId;
+
+        private final Long foodId;
+
+        private final Long[] ingredientIds;
+
+        private final String ingredientsHash;
+
+        // Leída de una fila antigua sin ids: hay que escribir los ids y el nuevo hash
+        private boolean migrated;
+
+        private long unitPrice;
+
+        private int quantity;
+
+        // Cantidad guardada en la BD: la diferencia con quantity es el incremento pendiente
+        private int baseQuantity;
+
+        private long totalPrice;
+
+        // Comida tal como se leyó, con lo que serializa la vista ya cargado
+        private Food food;
+
+        public Line(Long itemId, Long foodId, int quantity, Long[] ingredientIds, long unitPrice) {
+            this.itemId = itemId;
+            this.foodId = foodId;
+            this.quantity = quantity;
+            this.baseQuantity = quantity;
+            this.ingredientIds = ingredientIds == null ? new Long[0] : ingredientIds;
+            this.ingredientsHash = CartItem.hashIngredients(this.ingredientIds);
+            this.unitPrice = unitPrice;
+            this.totalPrice = unitPrice * quantity;
+        }
+
+        /**
+         * Línea a partir de un CartItem guardado (con su comida cargada). Si la fila es
+         * anterior a los ids, sus nombres se resuelven contra los ingredientes de la comida.
+         */
+        public static Line of(CartItem item) {
+            Long price = item.getFood().getPrice();
+            Long[] ingredientIds = item.getIngredientIds();
+            boolean migrated = false;
+            if (ingredientIds == null && item.getLegacyIngredients() != null) {
+                ingredientIds = CartItem.canonicalIngredientIds(
+                        IngredientsItem.idsOf(item.getFood(), item.getLegacyIngredients()));
+                migrated = true;
+            }
+            Line line = new Line(item.getId(), item.getFood().getId(), item.getQuantity(), ingredientIds,
+                    price == null ? 0 : price);
+            line.migrated = migrated;
+            line.setFood(item.getFood());
+            return line;
+        }
+
+        /**
+         * Comida de la línea si sigue siendo válida para la vista: null si no se ha leído o
+         * si su precio no es el de la línea.
+         */
+        public Food getFood() {
+            if (food == null) {
+                return null;
+            }
+            long price = food.getPrice() == null ? 0 : food.getPrice();
+            return price == unitPrice ? food : null;
+        }
+
+        /**
+         * Guarda la comida de la línea. Se llama dentro de una sesión de Hibernate: las
+         * colecciones perezosas que serializa la vista se cargan ya, porque la comida se
+         * sirve después en otras peticiones.
+         */
+        public void setFood(Food food) {
+            if (food != null) {
+                Hibernate.initialize(food.getImages());
+                Hibernate.initialize(food.getIngredients());
+                for (IngredientsItem ingredient : food.getIngredients()) {
+                    IngredientCategory category = ingredient.getCategory();
+                    if (category != null) {
+                        Hibernate.initialize(category.getIngredients());
+                    }
+                }
+                if (food.getRestaurant() != null) {
+                    Hibernate.initialize(food.getRestaurant().getImages());
+                    if (food.getRestaurant().getOwner() != null) {
+                        Hibernate.initialize(food.getRestaurant().getOwner().getFavorites());
+                        Hibernate.initialize(food.getRestaurant().getOwner().getAddresses());
+                    }
+                }
+            }
+            this.food = food;
+        }
+
+        private LineKey key() {
+            return new LineKey(foodId, ingredientsHash);
+        }
+
+        public Long getItemId() {
+            return itemId;
+        }
+
+        public Long getFoodId() {
+            return foodId;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public Long[] getIngredientIds() {
+            return ingredientIds;
+        }
+
+        public String getIngredientsHash() {
+            return ingredientsHash;
+        }
+
+        public long getUnitPrice() {
+            return unitPrice;
+        }
+
+        public long getTotalPrice() {
+            return totalPrice;
+        }
+    }
+}
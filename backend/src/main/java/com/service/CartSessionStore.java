@@ -0,0 +1,291 @@
+package com.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.model.Cart;
+import com.model.CartItem;
+import com.repository.CartItemRepository;
+import com.repository.CartRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Carritos activos en memoria con escritura diferida (write-behind).
+ *
+ * Cada carrito se carga una vez de la BD y a partir de ahí las ediciones se aplican
+ * en memoria bajo un lock por franja de usuarios. Las líneas nuevas se insertan al
+ * momento (el cliente necesita su id); los cambios de cantidad y los borrados se
+ * acumulan y se escriben por lotes en el siguiente flush periódico, al crear un
+ * pedido ({@link #flush(Long)}) y al apagar la aplicación.
+ *
+ * En la BD no se toman locks de fila: cada escritura compara la versión del carrito
+ * y, si otro escritor (otra instancia, un cambio de precio) la ha movido, recarga y
+ * fusiona los cambios pendientes como incrementos antes de reintentar. Una instancia
+ * que no escribe no ve los cambios de otra hasta que su sesión caduca por inactividad.
+ */
+@Component
+public class CartSessionStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CartSessionStore.class);
+
+    private static final int STRIPES = 64;
+
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    private final ConcurrentHashMap<Long, CartSession> sessions = new ConcurrentHashMap<>();
+
+    // Usuarios con cambios pendientes de escribir
+    private final Set<Long> dirtyUsers = ConcurrentHashMap.newKeySet();
+
+    private final CartRepository cartRepository;
+
+    private final CartItemRepository cartItemRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final long idleMillis;
+
+    private final int maxSessions;
+
+    public CartSessionStore(CartRepository cartRepository, CartItemRepository cartItemRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${zentro.cart.idle-minutes:30}") long idleMinutes,
+            @Value("${zentro.cart.max-sessions:10000}") int maxSessions) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.idleMillis = TimeUnit.MINUTES.toMillis(idleMinutes);
+        this.maxSessions = maxSessions;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @FunctionalInterface
+    public interface CartAction<T> {
+        T apply(CartSession session) throws Exception;
+    }
+
+    /**
+     * Ejecuta la acción sobre el carrito del usuario con el lock de su franja tomado,
+     * cargándolo de la BD si todavía no está en memoria.
+     */
+    public <T> T execute(Long userId, CartAction<T> action) throws Exception {
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            CartSession session = sessions.get(userId);
+            if (session == null) {
+                session = load(userId);
+                sessions.put(userId, session);
+            }
+            session.touch();
+            try {
+                return action.apply(session);
+            } finally {
+                if (session.isDirty()) {
+                    dirtyUsers.add(userId);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Escribe ya los cambios pendientes del carrito del usuario.
+     */
+    public void flush(Long userId) {
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            CartSession session = sessions.get(userId);
+            if (session != null) {
+                write(userId, session);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Propaga el cambio de precio de una comida: primero a las líneas y totales ya
+     * guardados en la BD y después a los carritos que están en memoria.
+     */
+    public void repriceFood(Long foodId, long unitPrice) {
+        transactionTemplate.executeWithoutResult(status -> {
+            cartItemRepository.repriceFood(foodId, unitPrice);
+            cartRepository.recalculateTotalsForFood(foodId);
+        });
+        for (Long userId : sessions.keySet()) {
+            ReentrantLock lock = lockFor(userId);
+            lock.lock();
+            try {
+                CartSession session = sessions.get(userId);
+                if (session != null && session.reprice(foodId, unitPrice)) {
+                    dirtyUsers.add(userId);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${zentro.cart.flush-ms:5000}")
+    public void flushDirty() {
+        for (Long userId : new ArrayList<>(dirtyUsers)) {
+            try {
+                flush(userId);
+            } catch (Exception e) {
+                // Sigue marcado como sucio: se reintenta en el siguiente ciclo
+                log.warn("Cart flush failed for user {}, will retry", userId, e);
+            }
+        }
+        evictIdle();
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        for (Long userId : new ArrayList<>(dirtyUsers)) {
+            try {
+                flush(userId);
+            } catch (Exception e) {
+                log.error("Cart flush on shutdown failed for user {}, pending changes are lost", userId, e);
+            }
+        }
+    }
+
+    private CartSession load(Long userId) throws Exception {
+        CartSession session = transactionTemplate.execute(status -> {
+            Cart cart = cartRepository.findByCustomerId(userId);
+            if (cart == null) {
+                return null;
+            }
+            // El cliente se sirve fuera de esta sesión de Hibernate
+            if (cart.getCustomer() != null) {
+                Hibernate.initialize(cart.getCustomer().getFavorites());
+                Hibernate.initialize(cart.getCustomer().getAddresses());
+            }
+
+            CartSession loaded = new CartSession(cart.getId(), cart.getCustomer(),
+                    cart.getVersion() == null ? 0 : cart.getVersion());
+            for (CartItem item : cartItemRepository.findByCartIdWithFood(cart.getId())) {
+                loaded.restore(CartSession.Line.of(item));
+            }
+            // Carritos anteriores a los totales mantenidos, o con precios que cambiaron
+            if (!Long.valueOf(loaded.getTotal()).equals(cart.getTotal())
+                    || !Integer.valueOf(loaded.getItemCount()).equals(cart.getItemCount())) {
+                loaded.markSummaryDirty();
+            }
+            return loaded;
+        });
+        if (session == null) {
+            throw new Exception("Cart not found for user " + userId);
+        }
+        return session;
+    }
+
+    /**
+     * Vuelve a leer el carrito de la BD y reaplica encima lo pendiente (ver
+     * {@link CartSession#rebase}). Se llama con el lock de la franja tomado.
+     */
+    public void refresh(CartSession session) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Long dbVersion = cartRepository.findVersionById(session.getCartId());
+            if (dbVersion == null) {
+                throw new IllegalStateException("Cart " + session.getCartId() + " no longer exists");
+            }
+            session.rebase(cartItemRepository.findByCartIdWithFood(session.getCartId()), dbVersion);
+        });
+    }
+
+    // Se llama con el lock de la franja tomado. Escritura optimista: la fila del carrito
+    // solo se actualiza si su versión es la que leímos; si otro escritor la cambió se
+    // recarga, se fusiona lo pendiente y se reintenta, hasta MAX_WRITE_ATTEMPTS veces.
+    private void write(Long userId, CartSession session) {
+        for (int attempt = 1; session.isDirty(); attempt++) {
+            Boolean written = transactionTemplate.execute(status -> {
+                int updated = cartRepository.updateSummaryIfVersion(session.getCartId(), session.getTotal(),
+                        session.getItemCount(), session.getVersion(), session.getPersistedVersion());
+                if (updated == 0) {
+                    return false;
+                }
+                // Primero los borrados: liberan la clave única de las filas que se fusionan
+                if (!session.removedItemIds().isEmpty()) {
+                    cartItemRepository.deleteAllByIdInBatch(session.removedItemIds());
+                }
+                for (CartSession.Line line : session.dirtyLines()) {
+                    cartItemRepository.updateQuantity(line.getItemId(), line.getQuantity(), line.getTotalPrice(),
+                            line.getIngredientIds(), line.getIngredientsHash());
+                }
+                return true;
+            });
+            if (Boolean.TRUE.equals(written)) {
+                session.markClean();
+            } else if (attempt >= MAX_WRITE_ATTEMPTS) {
+                throw new IllegalStateException("Cart " + session.getCartId() + " kept changing, gave up after "
+                        + attempt + " attempts");
+            } else {
+                refresh(session);
+            }
+        }
+        dirtyUsers.remove(userId);
+    }
+
+    // Quita de memoria (tras escribir lo pendiente) los carritos que llevan tiempo sin
+    // usarse, y los más antiguos si se supera el máximo
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, CartSession> entry : sessions.entrySet()) {
+            if (now - entry.getValue().getLastAccess() > idleMillis) {
+                evict(entry.getKey());
+            }
+        }
+        if (sessions.size() > maxSessions) {
+            List<Map.Entry<Long, CartSession>> oldest = new ArrayList<>(sessions.entrySet());
+            oldest.sort(Comparator.comparingLong(entry -> entry.getValue().getLastAccess()));
+            for (int i = 0; i < oldest.size() && sessions.size() > maxSessions; i++) {
+                evict(oldest.get(i).getKey());
+            }
+        }
+    }
+
+    private void evict(Long userId) {
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            CartSession session = sessions.get(userId);
+            if (session != null) {
+                write(userId, session);
+                sessions.remove(userId);
+            }
+        } catch (Exception e) {
+            // Se queda en memoria con sus cambios; el siguiente ciclo lo reintenta
+            log.warn("Cart eviction failed for user {}, will retry", userId, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(Long userId) {
+        return locks[Math.floorMod(userId.hashCode(), STRIPES)];
+    }
+}
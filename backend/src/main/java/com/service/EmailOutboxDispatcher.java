@@ -0,0 +1,174 @@
+package com.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.config.SchedulingConfig;
+import com.model.EmailOutbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Drena la tabla {@code email_outbox} en segundo plano.
+ *
+ * Cada ciclo reclama un lote de correos pendientes y los entrega con una sola llamada a
+ * {@link JavaMailSender#send(MimeMessage...)}, que abre una conexión SMTP y la reutiliza
+ * para todo el lote. Los fallos se reprograman con backoff exponencial.
+ */
+@Component
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private JavaMailSender javaMailSender;
+
+    @Value("${zentro.mail.outbox.batch-size:20}")
+    private int batchSize;
+
+    private final AtomicLong pending = new AtomicLong();
+
+    private final Timer sendTimer;
+
+    private final Timer deliveryDelay;
+
+    private final Counter sentCounter;
+
+    private final Counter failedCounter;
+
+    private long lastPurge;
+
+    public EmailOutboxDispatcher(MeterRegistry meterRegistry) {
+        Gauge.builder("zentro.mail.outbox.pending", pending, AtomicLong::get)
+                .description("Emails waiting in the outbox")
+                .register(meterRegistry);
+        this.sendTimer = Timer.builder("zentro.mail.outbox.send")
+                .description("SMTP time per email, measured per batch")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.deliveryDelay = Timer.builder("zentro.mail.outbox.delivery.delay")
+                .description("Time from enqueue to successful delivery")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.sentCounter = meterRegistry.counter("zentro.mail.outbox.sent");
+        this.failedCounter = meterRegistry.counter("zentro.mail.outbox.failed");
+    }
+
+    // Hilo propio: un lote SMTP lento no retrasa el resto de tareas programadas
+    @Scheduled(fixedDelayString = "${zentro.mail.outbox.poll-ms:2000}", initialDelayString = "${zentro.mail.outbox.poll-ms:2000}",
+            scheduler = SchedulingConfig.MAIL_SCHEDULER)
+    public void dispatch() {
+        try {
+            List<EmailOutbox> batch;
+            do {
+                batch = emailOutboxService.claimDue(batchSize);
+                if (!batch.isEmpty()) {
+                    deliver(batch);
+                }
+            } while (batch.size() == batchSize);
+
+            long now = System.currentTimeMillis();
+            if (now - lastPurge > TimeUnit.HOURS.toMillis(1)) {
+                emailOutboxService.purgeSent();
+                lastPurge = now;
+            }
+            pending.set(emailOutboxService.countPending());
+        } catch (Exception e) {
+            log.error("Email outbox dispatch failed", e);
+        }
+    }
+
+    private void deliver(List<EmailOutbox> batch) {
+        Map<MimeMessage, EmailOutbox> byMessage = new IdentityHashMap<>();
+        Map<Long, String> errors = new HashMap<>();
+
+        for (EmailOutbox email : batch) {
+            try {
+                byMessage.put(toMimeMessage(email), email);
+            } catch (MessagingException e) {
+                errors.put(email.getId(), e.getMessage());
+            }
+        }
+
+        MimeMessage[] messages = byMessage.keySet().toArray(new MimeMessage[0]);
+        long start = System.nanoTime();
+        try {
+            if (messages.length > 0) {
+                javaMailSender.send(messages);
+            }
+        } catch (MailSendException e) {
+            // Solo fallaron algunos mensajes del lote
+            Map<Object, Exception> failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                byMessage.values().forEach(email -> errors.put(email.getId(), e.getMessage()));
+            }
+            failed.forEach((message, cause) -> {
+                EmailOutbox email = byMessage.get(message);
+                if (email != null) {
+                    errors.put(email.getId(), cause.getMessage());
+                }
+            });
+        } catch (MailException e) {
+            // Conexión o autenticación: no salió ninguno
+            byMessage.values().forEach(email -> errors.put(email.getId(), e.getMessage()));
+        }
+        if (messages.length > 0) {
+            long perMessage = (System.nanoTime() - start) / messages.length;
+            for (int i = 0; i < messages.length; i++) {
+                sendTimer.record(perMessage, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        List<Long> sent = new ArrayList<>(batch.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (EmailOutbox email : batch) {
+            if (!errors.containsKey(email.getId())) {
+                sent.add(email.getId());
+                deliveryDelay.record(Duration.between(email.getCreatedAt(), now));
+            }
+        }
+        emailOutboxService.markSent(sent);
+        sentCounter.increment(sent.size());
+
+        if (!errors.isEmpty()) {
+            emailOutboxService.markFailed(errors);
+            failedCounter.increment(errors.size());
+            log.warn("Email outbox: {} of {} emails failed, will retry: {}", errors.size(), batch.size(), errors);
+        }
+    }
+
+    private MimeMessage toMimeMessage(EmailOutbox email) throws MessagingException {
+        MimeMessage message = javaMailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), true);
+        return message;
+    }
+}
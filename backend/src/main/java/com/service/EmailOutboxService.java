@@ -0,0 +1,25 @@
+package com.service;
+
+import java.util.List;
+import java.util.Map;
+
+import com.model.EmailOutbox;
+
+public interface EmailOutboxService {
+
+    // Encola el correo dentro de la transacción actual: se envía solo si ésta hace commit
+    EmailOutbox enqueue(String recipient, String subject, String htmlBody);
+
+    // Reclama hasta "limit" correos pendientes y los marca como SENDING
+    List<EmailOutbox> claimDue(int limit);
+
+    void markSent(List<Long> ids);
+
+    // Programa un reintento con backoff exponencial o descarta el correo si ya no quedan intentos
+    void markFailed(Map<Long, String> errors);
+
+    long countPending();
+
+    int purgeSent();
+
+}
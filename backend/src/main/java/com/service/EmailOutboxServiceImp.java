@@ -0,0 +1,104 @@
+package com.service;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.model.EmailOutbox;
+import com.model.EmailStatus;
+import com.repository.EmailOutboxRepository;
+
+@Service
+public class EmailOutboxServiceImp implements EmailOutboxService {
+
+    private static final long MAX_BACKOFF_SECONDS = 3600;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Value("${zentro.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${zentro.mail.outbox.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+
+    @Value("${zentro.mail.outbox.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${zentro.mail.outbox.retention-days:7}")
+    private long retentionDays;
+
+    @Override
+    @Transactional
+    public EmailOutbox enqueue(String recipient, String subject, String htmlBody) {
+        LocalDateTime now = LocalDateTime.now();
+        EmailOutbox email = new EmailOutbox();
+        email.setRecipient(recipient);
+        email.setSubject(subject);
+        email.setBody(htmlBody);
+        email.setStatus(EmailStatus.PENDING);
+        email.setCreatedAt(now);
+        email.setNextAttemptAt(now);
+        return emailOutboxRepository.save(email);
+    }
+
+    @Override
+    @Transactional
+    public List<EmailOutbox> claimDue(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> due = emailOutboxRepository.lockDue(now, limit);
+        for (EmailOutbox email : due) {
+            // El plazo evita que otro ciclo lo reenvíe mientras este intento sigue en curso
+            email.setStatus(EmailStatus.SENDING);
+            email.setAttempts(email.getAttempts() + 1);
+            email.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+        }
+        return due;
+    }
+
+    @Override
+    @Transactional
+    public void markSent(List<Long> ids) {
+        if (!ids.isEmpty()) {
+            emailOutboxRepository.markSent(ids, EmailStatus.SENT, LocalDateTime.now());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void markFailed(Map<Long, String> errors) {
+        LocalDateTime now = LocalDateTime.now();
+        for (EmailOutbox email : emailOutboxRepository.findAllById(errors.keySet())) {
+            String error = errors.get(email.getId());
+            email.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+            if (email.getAttempts() >= maxAttempts) {
+                email.setStatus(EmailStatus.FAILED);
+                // Descartado: no se vuelve a enviar, así que el cuerpo (y su enlace) sobra
+                email.setBody(null);
+                continue;
+            }
+            // 30s, 1m, 2m, 4m... hasta un máximo de una hora
+            long delay = Math.min(MAX_BACKOFF_SECONDS, backoffBaseSeconds << Math.min(email.getAttempts() - 1, 20));
+            email.setStatus(EmailStatus.PENDING);
+            email.setNextAttemptAt(now.plusSeconds(delay));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countPending() {
+        return emailOutboxRepository.countByStatusIn(EnumSet.of(EmailStatus.PENDING, EmailStatus.SENDING));
+    }
+
+    @Override
+    @Transactional
+    public int purgeSent() {
+        return emailOutboxRepository.deleteSentBefore(EmailStatus.SENT, LocalDateTime.now().minusDays(retentionDays));
+    }
+}
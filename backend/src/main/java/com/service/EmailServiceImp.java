@@ -1,53 +1,37 @@
 package com.service;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Service;
 
+import com.service.EmailTemplateEngine.RenderedEmail;
+
 @Service
 public class EmailServiceImp implements EmailService {
 
+    private static final int RESET_EXPIRY_MINUTES = 10;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
     @Autowired
-    private JavaMailSender javaMailSender;
+    private EmailTemplateEngine emailTemplateEngine;
+
+    @Value("${zentro.frontend.base-url}")
+    private String frontendBaseUrl;
 
+    // Solo encola: el envío SMTP lo hace EmailOutboxDispatcher fuera de la petición.
+    // El idioma sale del Accept-Language de la petición que pidió el cambio.
     @Override
     public void sendPasswordResetEmail(String toEmail, String resetToken) {
-        try {
-            MimeMessage message = javaMailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            helper.setTo(toEmail);
-            helper.setSubject("🔐 Recupera tu contraseña - Zentro Delivery");
-
-            String resetLink = "https://zentro-delivery.vercel.app/reset-password?token=" + resetToken;
-            System.out.println("🔗 ENLACE DE RECUPERACIÓN (Para pruebas locales usa este token): " + resetToken);
-            System.out.println(
-                    "🔗 O abre esto en tu navegador local: http://localhost:3000/reset-password?token=" + resetToken);
-
-            String htmlContent = "<div style='font-family: Arial, sans-serif; padding: 20px; color: #333;'>"
-                    + "<h2>Recuperación de Contraseña</h2>"
-                    + "<p>Hola,</p>"
-                    + "<p>Hemos recibido una solicitud para restablecer tu contraseña en Zentro Delivery.</p>"
-                    + "<p>Haz clic en el siguiente botón para crear una nueva contraseña:</p>"
-                    + "<a href='" + resetLink
-                    + "' style='background-color: #ff6b6b; color: white; padding: 10px 20px; text-decoration: none; border-radius: 5px; display: inline-block; margin: 10px 0;'>Restablecer Contraseña</a>"
-                    + "<p>Si no solicitaste este cambio, puedes ignorar este correo.</p>"
-                    + "<p>El enlace expirará en 10 minutos.</p>"
-                    + "<hr>"
-                    + "<p style='font-size: 12px; color: #777;'>Zentro Delivery Team</p>"
-                    + "</div>";
-
-            helper.setText(htmlContent, true);
-
-            javaMailSender.send(message);
-            System.out.println("Email sent successfully to: " + toEmail);
-
-        } catch (MessagingException e) {
-            e.printStackTrace(); // Imprimir stack trace completo en consola backend
-            throw new RuntimeException("Error enviando email: " + e.getMessage());
-        }
+        String resetLink = frontendBaseUrl + "/reset-password?token=" + resetToken;
+
+        RenderedEmail email = emailTemplateEngine.render("password-reset", LocaleContextHolder.getLocale(),
+                Map.of("resetLink", resetLink, "expiryMinutes", RESET_EXPIRY_MINUTES));
+
+        emailOutboxService.enqueue(toEmail, email.subject(), email.html());
     }
 }
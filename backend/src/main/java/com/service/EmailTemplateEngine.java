@@ -0,0 +1,201 @@
+package com.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Plantillas de email precompiladas.
+ *
+ * Al arrancar se leen todas las plantillas de {@code classpath:templates/email/} y se
+ * trocean una sola vez en fragmentos literales y variables {@code ${nombre}}. Renderizar
+ * es solo concatenar esos fragmentos en un StringBuilder reutilizado por hilo, sin
+ * parsear ni crear cadenas intermedias.
+ *
+ * Formato del fichero: primera línea {@code Subject: ...}, una línea en blanco y el
+ * cuerpo HTML. Las variantes por idioma usan el sufijo del locale
+ * ({@code password-reset_en.html}); sin sufijo es la plantilla por defecto (español).
+ * Los valores se escapan como HTML en el cuerpo; el asunto es texto plano.
+ */
+@Component
+public class EmailTemplateEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailTemplateEngine.class);
+
+    private static final String LOCATION = "classpath:templates/email/*.html";
+
+    private static final String SUBJECT_PREFIX = "Subject:";
+
+    // Builders más grandes que esto no se guardan para no retener memoria tras un pico
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    private final Map<String, CompiledTemplate> templates = new HashMap<>();
+
+    @PostConstruct
+    public void load() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(LOCATION);
+        for (Resource resource : resources) {
+            String filename = resource.getFilename();
+            try (InputStream in = resource.getInputStream()) {
+                String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                String key = filename.substring(0, filename.length() - ".html".length());
+                templates.put(key, compile(key, source));
+            }
+        }
+        log.info("Loaded {} email templates", templates.size());
+    }
+
+    /**
+     * Renderiza la plantilla en el idioma más cercano disponible: primero
+     * {@code nombre_es_CO}, luego {@code nombre_es} y por último {@code nombre}.
+     */
+    public RenderedEmail render(String name, Locale locale, Map<String, ?> model) {
+        CompiledTemplate template = resolve(name, locale);
+        return new RenderedEmail(template.subject.render(model), template.body.render(model));
+    }
+
+    private CompiledTemplate resolve(String name, Locale locale) {
+        CompiledTemplate template = null;
+        if (locale != null && !locale.getLanguage().isEmpty()) {
+            if (!locale.getCountry().isEmpty()) {
+                template = templates.get(name + "_" + locale.getLanguage() + "_" + locale.getCountry());
+            }
+            if (template == null) {
+                template = templates.get(name + "_" + locale.getLanguage());
+            }
+        }
+        if (template == null) {
+            template = templates.get(name);
+        }
+        if (template == null) {
+            throw new IllegalArgumentException("Email template not found: " + name);
+        }
+        return template;
+    }
+
+    static CompiledTemplate compile(String key, String source) {
+        String text = source.replace("\r\n", "\n");
+        if (!text.startsWith(SUBJECT_PREFIX)) {
+            throw new IllegalStateException("Email template " + key + " must start with '" + SUBJECT_PREFIX + "'");
+        }
+        int endOfSubject = text.indexOf('\n');
+        if (endOfSubject < 0) {
+            throw new IllegalStateException("Email template " + key + " has no body");
+        }
+        String subject = text.substring(SUBJECT_PREFIX.length(), endOfSubject).trim();
+        String body = text.substring(endOfSubject + 1).strip();
+        return new CompiledTemplate(Segments.parse(key, subject, false), Segments.parse(key, body, true));
+    }
+
+    static final class CompiledTemplate {
+
+        final Segments subject;
+
+        final Segments body;
+
+        CompiledTemplate(Segments subject, Segments body) {
+            this.subject = subject;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Texto troceado: literals[i] va seguido de variables[i]; el último literal no
+     * tiene variable detrás.
+     */
+    static final class Segments {
+
+        private final String[] literals;
+
+        private final String[] variables;
+
+        private final int literalLength;
+
+        private final boolean html;
+
+        private Segments(String[] literals, String[] variables, boolean html) {
+            this.literals = literals;
+            this.variables = variables;
+            this.html = html;
+            int length = 0;
+            for (String literal : literals) {
+                length += literal.length();
+            }
+            this.literalLength = length;
+        }
+
+        static Segments parse(String key, String text, boolean html) {
+            List<String> literals = new ArrayList<>();
+            List<String> variables = new ArrayList<>();
+            int from = 0;
+            int start;
+            while ((start = text.indexOf("${", from)) >= 0) {
+                int end = text.indexOf('}', start + 2);
+                if (end < 0) {
+                    throw new IllegalStateException("Unclosed variable in email template " + key);
+                }
+                literals.add(text.substring(from, start));
+                variables.add(text.substring(start + 2, end).trim().intern());
+                from = end + 1;
+            }
+            literals.add(text.substring(from));
+            return new Segments(literals.toArray(new String[0]), variables.toArray(new String[0]), html);
+        }
+
+        String render(Map<String, ?> model) {
+            if (variables.length == 0) {
+                return literals[0];
+            }
+            StringBuilder out = BUILDER.get();
+            out.setLength(0);
+            out.ensureCapacity(literalLength + variables.length * 64);
+            for (int i = 0; i < variables.length; i++) {
+                out.append(literals[i]);
+                Object value = model.get(variables[i]);
+                if (value != null && html) {
+                    appendEscaped(out, value.toString());
+                } else if (value != null) {
+                    out.append(value);
+                }
+            }
+            out.append(literals[variables.length]);
+            String result = out.toString();
+            if (out.capacity() > MAX_POOLED_CAPACITY) {
+                BUILDER.remove();
+            }
+            return result;
+        }
+
+        private static void appendEscaped(StringBuilder out, String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '<' -> out.append("&lt;");
+                    case '>' -> out.append("&gt;");
+                    case '&' -> out.append("&amp;");
+                    case '"' -> out.append("&quot;");
+                    case '\'' -> out.append("&#39;");
+                    default -> out.append(c);
+                }
+            }
+        }
+    }
+
+    public record RenderedEmail(String subject, String html) {
+    }
+}
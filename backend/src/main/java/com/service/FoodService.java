@@ -25,5 +25,7 @@ public interface FoodService {
 
     public Food updateAvailabilityStatus(Long foodId) throws Exception;
 
+    public Food updatePrice(Long foodId, Long price) throws Exception;
+
 
 }
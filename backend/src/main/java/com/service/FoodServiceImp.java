@@ -19,6 +19,9 @@ public class FoodServiceImp implements FoodService {
     @Autowired
     private FoodRepository foodRepository;
 
+    @Autowired
+    private CartSessionStore cartSessionStore;
+
     @Override
     public Food createFood(CreateFoodRequest req, Category category, Restaurant restaurant) {
         Food food = new Food();
@@ -117,6 +120,23 @@ public class FoodServiceImp implements FoodService {
         return foodRepository.save(food);
         // Implementation here
     }
+
+    @Override
+    public Food updatePrice(Long foodId, Long price) throws Exception {
+        if (price == null || price < 0) {
+            throw new Exception("Invalid price");
+        }
+        Food food = findFoodById(foodId);
+        if (price.equals(food.getPrice())) {
+            return food;
+        }
+        food.setPrice(price);
+        Food savedFood = foodRepository.save(food);
+
+        // Los carritos que contienen la comida recalculan sus líneas y totales
+        cartSessionStore.repriceFood(foodId, price);
+        return savedFood;
+    }
     
 
     
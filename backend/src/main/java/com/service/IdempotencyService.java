@@ -0,0 +1,31 @@
+package com.service;
+
+import com.response.IdempotentResponse;
+
+public interface IdempotencyService {
+
+    @FunctionalInterface
+    public interface IdempotentAction {
+        Object run(Completion completion) throws Exception;
+    }
+
+    /**
+     * La acción la llama con su resultado dentro de su propia transacción: la clave queda
+     * COMPLETED en el mismo commit que lo que la acción crea.
+     */
+    @FunctionalInterface
+    public interface Completion {
+        void complete(Object result);
+    }
+
+    /**
+     * Ejecuta la acción una sola vez por usuario y clave. Los reintentos con la misma
+     * clave reciben la respuesta guardada; los que llegan mientras la primera sigue en
+     * curso la esperan. Si la acción falla antes de confirmar su transacción la clave se
+     * libera y se propaga la excepción; si falla después, la clave se queda completada y
+     * se responde con lo guardado.
+     */
+    public IdempotentResponse execute(Long userId, String key, Object request, IdempotentAction action)
+            throws Exception;
+
+}
@@ -0,0 +1,252 @@
+package com.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.model.IdempotencyKey;
+import com.model.IdempotencyStatus;
+import com.repository.IdempotencyKeyRepository;
+import com.response.IdempotentResponse;
+import com.response.MessageResponse;
+
+/**
+ * Claves de idempotencia (cabecera {@code Idempotency-Key}).
+ *
+ * La tabla {@code idempotency_keys} es la fuente de verdad: la clave se reserva con un
+ * INSERT ... ON CONFLICT DO NOTHING, así que entre instancias solo una ejecuta la acción;
+ * las demás consultan la fila hasta que está completada. Delante hay un mapa en memoria
+ * (acotado) con la respuesta en curso o terminada de cada clave: los duplicados que
+ * llegan a la misma instancia esperan al primero sin tocar la BD y los reintentos
+ * posteriores se responden desde memoria.
+ */
+@Service
+public class IdempotencyServiceImp implements IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyServiceImp.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final long POLL_MILLIS = 100;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${zentro.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    // Una clave en curso más antigua que esto se da por abandonada (instancia caída)
+    @Value("${zentro.idempotency.lease-seconds:60}")
+    private long leaseSeconds;
+
+    // Lo que espera un duplicado a que termine la primera petición antes de responder 409
+    @Value("${zentro.idempotency.wait-ms:10000}")
+    private long waitMillis;
+
+    @Value("${zentro.idempotency.max-cached:10000}")
+    private int maxCached;
+
+    // "<userId>:<clave>" -> respuesta de la petición que tiene la clave en esta instancia
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private static final class Entry {
+
+        final String requestHash;
+
+        final long expiresAt;
+
+        final CompletableFuture<IdempotentResponse> response = new CompletableFuture<>();
+
+        Entry(String requestHash, long expiresAt) {
+            this.requestHash = requestHash;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    @Override
+    public IdempotentResponse execute(Long userId, String key, Object request, IdempotentAction action)
+            throws Exception {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return error(HttpStatus.BAD_REQUEST, "Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+        String id = userId + ":" + key;
+        String requestHash = sha256(objectMapper.writeValueAsBytes(request));
+
+        Entry entry = new Entry(requestHash, System.currentTimeMillis() + TimeUnit.HOURS.toMillis(ttlHours));
+        Entry running = entries.putIfAbsent(id, entry);
+        if (running != null) {
+            if (running.expiresAt < System.currentTimeMillis()) {
+                entries.remove(id, running);
+                return execute(userId, key, request, action);
+            }
+            return awaitLocal(running, requestHash, userId, key, request, action);
+        }
+
+        try {
+            IdempotentResponse response = claimAndRun(id, userId, requestHash, action);
+            // Solo se recuerdan respuestas reales; los 409/422 no dicen nada de la clave
+            if (response.getStatus() >= 300 || entries.size() > maxCached) {
+                entries.remove(id, entry);
+            }
+            entry.response.complete(response);
+            return response;
+        } catch (Exception e) {
+            entries.remove(id, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Duplicado en esta instancia: espera la respuesta de la primera petición
+    private IdempotentResponse awaitLocal(Entry running, String requestHash, Long userId, String key,
+            Object request, IdempotentAction action) throws Exception {
+        if (!running.requestHash.equals(requestHash)) {
+            return mismatch();
+        }
+        try {
+            IdempotentResponse response = running.response.get(waitMillis, TimeUnit.MILLISECONDS);
+            return new IdempotentResponse(response.getStatus(), response.getBody(), true);
+        } catch (TimeoutException e) {
+            return inProgress();
+        } catch (ExecutionException e) {
+            // La primera falló y liberó la clave: este reintento la vuelve a intentar
+            return execute(userId, key, request, action);
+        }
+    }
+
+    private IdempotentResponse claimAndRun(String id, Long userId, String requestHash, IdempotentAction action)
+            throws Exception {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime expiresAt = now.plusHours(ttlHours);
+            if (idempotencyKeyRepository.insertIfAbsent(id, userId, requestHash, now, expiresAt) == 1
+                    || idempotencyKeyRepository.takeOver(id, requestHash, IdempotencyStatus.IN_PROGRESS, now,
+                            now.minusSeconds(leaseSeconds), expiresAt) == 1) {
+                return run(id, action);
+            }
+
+            Optional<IdempotencyKey> existing = idempotencyKeyRepository.findById(id);
+            if (existing.isPresent()) {
+                IdempotencyKey stored = existing.get();
+                if (!requestHash.equals(stored.getRequestHash())) {
+                    return mismatch();
+                }
+                if (stored.getStatus() == IdempotencyStatus.COMPLETED) {
+                    return new IdempotentResponse(stored.getResponseStatus(), stored.getResponseBody(), true);
+                }
+            }
+            // En curso en otra instancia (o recién liberada): se vuelve a mirar en un momento
+            if (System.currentTimeMillis() >= deadline) {
+                return inProgress();
+            }
+            Thread.sleep(POLL_MILLIS);
+        }
+    }
+
+    private IdempotentResponse run(String id, IdempotentAction action) throws Exception {
+        Outcome outcome = new Outcome();
+        Object result;
+        try {
+            result = action.run(value -> complete(id, value, outcome));
+        } catch (Exception e) {
+            if (!outcome.committed) {
+                // La transacción de la acción no se confirmó: nada se creó y el cliente
+                // puede reintentar con la misma clave
+                idempotencyKeyRepository.deleteById(id);
+                throw e;
+            }
+            // Lo creado ya está confirmado junto con la clave: se responde con lo guardado
+            log.warn("Idempotent request {} failed after commit, answering with the stored response", id, e);
+            return new IdempotentResponse(HttpStatus.OK.value(), outcome.body, false);
+        }
+        if (outcome.body == null) {
+            // La acción no completó la clave en su transacción
+            complete(id, result, outcome);
+        }
+        return new IdempotentResponse(HttpStatus.OK.value(), outcome.body, false);
+    }
+
+    // Guarda la respuesta en la transacción en curso, si la hay, y anota si llega a confirmarse
+    private void complete(String id, Object result, Outcome outcome) {
+        try {
+            outcome.body = objectMapper.writeValueAsString(result);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        idempotencyKeyRepository.complete(id, IdempotencyStatus.COMPLETED, HttpStatus.OK.value(), outcome.body);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            outcome.committed = true;
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                outcome.committed = status == STATUS_COMMITTED;
+            }
+        });
+    }
+
+    private static final class Outcome {
+
+        String body;
+
+        boolean committed;
+    }
+
+    @Scheduled(fixedDelayString = "${zentro.idempotency.sweep-ms:600000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt < now && entry.response.isDone());
+        int deleted = idempotencyKeyRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private IdempotentResponse inProgress() {
+        return error(HttpStatus.CONFLICT, "A request with this Idempotency-Key is still in progress");
+    }
+
+    private IdempotentResponse mismatch() {
+        return error(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key was already used with a different request");
+    }
+
+    private IdempotentResponse error(HttpStatus status, String message) {
+        try {
+            String body = objectMapper.writeValueAsString(new MessageResponse(message));
+            return new IdempotentResponse(status.value(), body, false);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256(byte[] value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
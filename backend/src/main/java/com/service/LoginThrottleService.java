@@ -0,0 +1,15 @@
+package com.service;
+
+public interface LoginThrottleService {
+
+    // Milisegundos que debe esperar el cliente antes de intentar un login (0 = permitido)
+    long checkSignin(String email, String clientIp);
+
+    void recordSigninFailure(String email, String clientIp);
+
+    void recordSigninSuccess(String email);
+
+    // Cuenta la solicitud de recuperación y devuelve la espera necesaria (0 = permitido)
+    long acquirePasswordReset(String email, String clientIp);
+
+}
@@ -0,0 +1,183 @@
+package com.service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Limitador de intentos de login y de recuperación de contraseña, por email y por IP.
+ *
+ * Cada clave tiene un contador de ventana deslizante (aproximado con la ventana
+ * actual y la anterior ponderada). Al superar el límite la clave queda bloqueada con
+ * un backoff exponencial que crece con cada reincidencia. Las claves se reparten en
+ * franjas con su propio lock (sin lock global), y cada franja es un LRU acotado, de
+ * modo que la memoria total está limitada y las claves frías se descartan solas.
+ */
+@Service
+public class LoginThrottleServiceImp implements LoginThrottleService {
+
+    private static final int STRIPES = 64;
+    private static final long MAX_BACKOFF_MILLIS = 15 * 60 * 1000L;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final Limit signinEmail;
+    private final Limit signinIp;
+    private final Limit resetEmail;
+    private final Limit resetIp;
+
+    public LoginThrottleServiceImp(
+            @Value("${zentro.security.throttle.max-keys:100000}") int maxKeys,
+            @Value("${zentro.security.throttle.signin-email-limit:5}") int signinEmailLimit,
+            @Value("${zentro.security.throttle.signin-ip-limit:30}") int signinIpLimit,
+            @Value("${zentro.security.throttle.signin-window-seconds:300}") long signinWindowSeconds,
+            @Value("${zentro.security.throttle.reset-email-limit:3}") int resetEmailLimit,
+            @Value("${zentro.security.throttle.reset-ip-limit:10}") int resetIpLimit,
+            @Value("${zentro.security.throttle.reset-window-seconds:900}") long resetWindowSeconds) {
+
+        int perStripe = Math.max(16, maxKeys / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        this.signinEmail = new Limit("se:", signinEmailLimit, signinWindowSeconds * 1000);
+        this.signinIp = new Limit("si:", signinIpLimit, signinWindowSeconds * 1000);
+        this.resetEmail = new Limit("re:", resetEmailLimit, resetWindowSeconds * 1000);
+        this.resetIp = new Limit("ri:", resetIpLimit, resetWindowSeconds * 1000);
+    }
+
+    @Override
+    public long checkSignin(String email, String clientIp) {
+        long now = System.currentTimeMillis();
+        return Math.max(waitMillis(signinEmail, normalize(email), now), waitMillis(signinIp, clientIp, now));
+    }
+
+    @Override
+    public void recordSigninFailure(String email, String clientIp) {
+        long now = System.currentTimeMillis();
+        hit(signinEmail, normalize(email), now);
+        hit(signinIp, clientIp, now);
+    }
+
+    @Override
+    public void recordSigninSuccess(String email) {
+        // Solo se limpia el email: la IP puede seguir probando otras cuentas
+        String key = signinEmail.prefix + normalize(email);
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.windows.remove(key);
+        }
+    }
+
+    @Override
+    public long acquirePasswordReset(String email, String clientIp) {
+        long now = System.currentTimeMillis();
+        long wait = Math.max(waitMillis(resetEmail, normalize(email), now), waitMillis(resetIp, clientIp, now));
+        if (wait > 0) {
+            return wait;
+        }
+        hit(resetEmail, normalize(email), now);
+        hit(resetIp, clientIp, now);
+        return 0;
+    }
+
+    private long waitMillis(Limit limit, String value, long now) {
+        if (value == null) {
+            return 0;
+        }
+        String key = limit.prefix + value;
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Window window = stripe.windows.get(key);
+            return window == null ? 0 : Math.max(0, window.blockedUntil - now);
+        }
+    }
+
+    private void hit(Limit limit, String value, long now) {
+        if (value == null) {
+            return;
+        }
+        String key = limit.prefix + value;
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Window window = stripe.windows.get(key);
+            if (window == null) {
+                window = new Window(now);
+                stripe.windows.put(key, window);
+            }
+            window.roll(now, limit.windowMillis);
+            window.current++;
+            if (window.estimate(now, limit.windowMillis) > limit.maxHits) {
+                // Backoff progresivo: 1/8 de ventana, y el doble en cada reincidencia
+                long backoff = Math.min(MAX_BACKOFF_MILLIS, (limit.windowMillis / 8) << Math.min(window.strikes, 10));
+                window.blockedUntil = now + backoff;
+                window.strikes++;
+            }
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (STRIPES - 1)];
+    }
+
+    private static String normalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Limit(String prefix, int maxHits, long windowMillis) {
+    }
+
+    private static final class Window {
+
+        private long windowStart;
+        private int previous;
+        private int current;
+        private int strikes;
+        private long blockedUntil;
+
+        Window(long now) {
+            this.windowStart = now;
+        }
+
+        void roll(long now, long windowMillis) {
+            long elapsed = now - windowStart;
+            if (elapsed < windowMillis) {
+                return;
+            }
+            if (elapsed < 2 * windowMillis) {
+                previous = current;
+                windowStart += windowMillis;
+            } else {
+                // Ventana completa sin actividad: se olvidan las reincidencias
+                previous = 0;
+                strikes = 0;
+                windowStart = now;
+            }
+            current = 0;
+        }
+
+        double estimate(long now, long windowMillis) {
+            double weight = 1.0 - (double) (now - windowStart) / windowMillis;
+            return current + previous * Math.max(0, weight);
+        }
+    }
+
+    private static final class Stripe {
+
+        private final LinkedHashMap<String, Window> windows;
+
+        Stripe(int capacity) {
+            // LRU por acceso: al llenarse se descarta la clave más fría
+            this.windows = new LinkedHashMap<>(capacity, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Window> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.config.SchedulingConfig;
+import com.model.OrderStatus;
+import com.repository.ArchivedOrderRepository;
+
+/**
+ * Mueve los pedidos en un estado terminal (COMPLETED) más antiguos que
+ * {@code zentro.orders.archive.after-days} de {@code orders}/{@code order_item} a
+ * {@code orders_archive}/{@code order_item_archive}, para que las tablas activas solo
+ * crezcan con el volumen reciente.
+ *
+ * Trabaja por lotes acotados, cada uno en su transacción (copiar y borrar), con un
+ * máximo de lotes por pasada para no alargar las transacciones ni ocupar el scheduler.
+ * Los listados solo consultan el archivo cuando se pide historial antiguo. Solo se
+ * archivan estados sin transiciones de salida: un pedido archivado ya no está en
+ * {@code orders} y no podría cambiar de estado (DELIVERED aún pasa a COMPLETED).
+ */
+@Component
+public class OrderArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiver.class);
+
+    static final List<String> ARCHIVABLE = archivableStatuses();
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private OrderStatusCounters orderStatusCounters;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${zentro.orders.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${zentro.orders.archive.after-days:30}")
+    private long afterDays;
+
+    @Value("${zentro.orders.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${zentro.orders.archive.max-batches:100}")
+    private int maxBatches;
+
+    private static List<String> archivableStatuses() {
+        List<String> statuses = new ArrayList<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            if (status.isTerminal()) {
+                statuses.add(status.name());
+            }
+        }
+        return List.copyOf(statuses);
+    }
+
+    // Los pedidos archivados son anteriores a esta fecha
+    public Date archiveHorizon() {
+        return new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(afterDays));
+    }
+
+    @Scheduled(initialDelayString = "${zentro.orders.archive.interval-ms:3600000}",
+            fixedDelayString = "${zentro.orders.archive.interval-ms:3600000}",
+            scheduler = SchedulingConfig.ARCHIVE_SCHEDULER)
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        Date before = archiveHorizon();
+        int archived = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<ArchivedOrderRepository.RemovedOrder> removed = transactionTemplate
+                    .execute(status -> archiveBatch(before));
+            // Los contadores solo cuentan pedidos activos; se ajustan tras el commit
+            for (ArchivedOrderRepository.RemovedOrder order : removed) {
+                orderStatusCounters.removed(order.getRestaurantId(), OrderStatus.parse(order.getStatus()));
+            }
+            archived += removed.size();
+            if (removed.size() < batchSize) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            log.info("Archived {} orders older than {}", archived, before);
+        }
+    }
+
+    private List<ArchivedOrderRepository.RemovedOrder> archiveBatch(Date before) {
+        List<Long> ids = archivedOrderRepository.lockArchivable(ARCHIVABLE, before, batchSize);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        archivedOrderRepository.copyOrders(ids, new Date());
+        archivedOrderRepository.copyItems(ids);
+        List<Long> itemIds = archivedOrderRepository.deleteItemLinks(ids);
+        if (!itemIds.isEmpty()) {
+            archivedOrderRepository.deleteItems(itemIds);
+        }
+        return archivedOrderRepository.deleteOrders(ids);
+    }
+}
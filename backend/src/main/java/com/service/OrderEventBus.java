@@ -0,0 +1,387 @@
+package com.service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.dto.OrderEvent;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bus de eventos de pedidos en memoria para los streams SSE: el de cada restaurante
+ * (pantalla de cocina) y el de cada cliente (seguimiento de sus pedidos).
+ *
+ * Publicar no hace I/O: el evento se guarda en el histórico del canal (para reanudar
+ * con Last-Event-ID) y se encola en el buffer acotado de cada suscriptor. El envío lo
+ * hace un hilo virtual por suscriptor solo mientras tiene algo pendiente, así que las
+ * conexiones abiertas sin actividad no ocupan hilos. Un suscriptor cuyo buffer se llena
+ * (cliente lento o caído) se desconecta en lugar de frenar a quien publica; al
+ * reconectar recupera lo perdido del histórico.
+ *
+ * En los streams de clientes los cambios seguidos de un mismo pedido se fusionan: si el
+ * anterior aún no se envió, se sustituye por el último estado.
+ *
+ * Solo funciona en un único nodo: cada instancia publica lo que pasa en ella y no
+ * reenvía nada a las demás, así que con varias instancias un suscriptor no recibe los
+ * pedidos creados o cambiados en otra. Los ids llevan en los bits bajos el nodo que los
+ * generó; un Last-Event-ID de otro nodo (conexión que se reabrió en otra instancia, o
+ * un reinicio) no se puede reanudar desde el histórico y recibe "resync".
+ */
+@Component
+public class OrderEventBus {
+
+    // Marca en el buffer de un suscriptor: enviar un comentario de heartbeat
+    private static final Object HEARTBEAT = new Object();
+
+    // Evento "resync": el cliente pide un id que ya no está en el histórico y debe recargar el listado
+    private static final String RESYNC = "resync";
+
+    @Value("${zentro.orders.events.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${zentro.orders.events.replay-size:256}")
+    private int replaySize;
+
+    @Value("${zentro.orders.events.customer-replay-size:16}")
+    private int customerReplaySize;
+
+    @Value("${zentro.orders.events.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    // Un canal sin suscriptores se olvida pasado este tiempo; quien reconecte después recibe "resync"
+    @Value("${zentro.orders.events.channel-retention-minutes:10}")
+    private long channelRetentionMinutes;
+
+    // Bits bajos de cada id: el nodo que lo generó
+    private static final int NODE_BITS = 8;
+
+    private static final long NODE_MASK = (1L << NODE_BITS) - 1;
+
+    // Fijo por instancia si se despliega más de una; por defecto uno al azar en cada arranque
+    @Value("${zentro.orders.events.node-id:-1}")
+    private int configuredNodeId;
+
+    private long nodeId;
+
+    // Ids crecientes también entre reinicios: un Last-Event-ID anterior al arranque se detecta como hueco
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    private final ConcurrentHashMap<Long, Channel> restaurants = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, Channel> customers = new ConcurrentHashMap<>();
+
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PostConstruct
+    void init() {
+        nodeId = configuredNodeId >= 0 && configuredNodeId <= NODE_MASK ? configuredNodeId
+                : ThreadLocalRandom.current().nextInt(1 << NODE_BITS);
+    }
+
+    /**
+     * Publica el evento para los suscriptores de su restaurante y de su cliente. No bloquea.
+     * Solo se guarda en los canales que alguien escucha o ha escuchado hace poco.
+     */
+    public void publish(OrderEvent event) {
+        OrderEvent numbered = event.withId(toId(sequence.incrementAndGet()));
+        publish(find(restaurants, event.restaurantId()), numbered, replaySize);
+        publish(find(customers, event.customerId()), numbered, customerReplaySize);
+    }
+
+    private void publish(Channel channel, OrderEvent event, int historySize) {
+        if (channel == null) {
+            return;
+        }
+        synchronized (channel) {
+            channel.history.addLast(event);
+            if (channel.history.size() > historySize) {
+                channel.droppedUpTo = channel.history.removeFirst().id();
+            }
+            channel.lastActivity = System.currentTimeMillis();
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    /**
+     * Stream de los pedidos de un restaurante: pedidos nuevos y cambios de estado.
+     */
+    public SseEmitter subscribeRestaurant(Long restaurantId, Long lastEventId) {
+        return subscribe(restaurants, restaurantId, lastEventId, false);
+    }
+
+    /**
+     * Stream de los pedidos de un cliente, con los cambios seguidos de cada pedido fusionados.
+     */
+    public SseEmitter subscribeCustomer(Long customerId, Long lastEventId) {
+        return subscribe(customers, customerId, lastEventId, true);
+    }
+
+    private SseEmitter subscribe(ConcurrentHashMap<Long, Channel> channels, Long id, Long lastEventId,
+            boolean coalesce) {
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        Subscriber subscriber = join(channels, id, emitter, lastEventId, coalesce);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        return emitter;
+    }
+
+    // Con lastEventId se envía primero lo publicado después de ese id, o un evento
+    // "resync" si ya no está en el histórico o lo generó otro nodo
+    private Subscriber join(ConcurrentHashMap<Long, Channel> channels, Long id, SseEmitter emitter,
+            Long lastEventId, boolean coalesce) {
+        while (true) {
+            Channel channel = channel(channels, id);
+            synchronized (channel) {
+                // El heartbeat pudo olvidar el canal (vacío e inactivo) entre computeIfAbsent y
+                // este lock: publish ya no lo encuentra, así que se vuelve a pedir
+                if (channels.get(id) != channel) {
+                    continue;
+                }
+                List<Object> backlog = new ArrayList<>();
+                if (lastEventId != null) {
+                    // Eventos posteriores a lastEventId que el canal no tiene: de otro nodo, de
+                    // antes de que se creara (o del arranque de esta instancia) o descartados
+                    if ((lastEventId & NODE_MASK) != nodeId || lastEventId < channel.startId
+                            || lastEventId < channel.droppedUpTo) {
+                        backlog.add(RESYNC);
+                    } else {
+                        for (OrderEvent event : channel.history) {
+                            if (event.id() > lastEventId) {
+                                backlog.add(event);
+                            }
+                        }
+                    }
+                }
+                // Abre la respuesta ya: el cliente sabe que está conectado aunque no haya eventos
+                backlog.add(HEARTBEAT);
+                // El buffer tiene sitio para lo pendiente más los eventos nuevos
+                Subscriber subscriber = new Subscriber(channel, emitter, bufferSize + backlog.size(), coalesce);
+                for (Object item : backlog) {
+                    subscriber.offer(item);
+                }
+                channel.subscribers.add(subscriber);
+                channel.lastActivity = System.currentTimeMillis();
+                return subscriber;
+            }
+        }
+    }
+
+    private Channel channel(ConcurrentHashMap<Long, Channel> channels, Long id) {
+        return channels.computeIfAbsent(id, key -> new Channel(toId(sequence.get())));
+    }
+
+    private long toId(long value) {
+        return (value << NODE_BITS) | nodeId;
+    }
+
+    private static Channel find(ConcurrentHashMap<Long, Channel> channels, Long id) {
+        return id == null ? null : channels.get(id);
+    }
+
+    public int subscriberCount() {
+        int count = 0;
+        for (Channel channel : restaurants.values()) {
+            count += channel.subscribers.size();
+        }
+        for (Channel channel : customers.values()) {
+            count += channel.subscribers.size();
+        }
+        return count;
+    }
+
+    // Mantiene vivas las conexiones a través de proxies, detecta clientes que se fueron y
+    // olvida los canales que ya nadie escucha
+    @Scheduled(fixedDelayString = "${zentro.orders.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        long idleBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(channelRetentionMinutes);
+        heartbeat(restaurants, idleBefore);
+        heartbeat(customers, idleBefore);
+    }
+
+    private void heartbeat(ConcurrentHashMap<Long, Channel> channels, long idleBefore) {
+        for (Map.Entry<Long, Channel> entry : channels.entrySet()) {
+            Channel channel = entry.getValue();
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.offer(HEARTBEAT);
+            }
+            synchronized (channel) {
+                if (channel.subscribers.isEmpty() && channel.lastActivity < idleBefore) {
+                    channels.remove(entry.getKey(), channel);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Channel channel : restaurants.values()) {
+            channel.completeAll();
+        }
+        for (Channel channel : customers.values()) {
+            channel.completeAll();
+        }
+        senders.shutdown();
+    }
+
+    private static final class Channel {
+
+        // El histórico tiene todos los eventos con id mayor que este (salvo los descartados)
+        final long startId;
+
+        // Últimos eventos del canal, para reanudar
+        final ArrayDeque<OrderEvent> history = new ArrayDeque<>();
+
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+        // Id del último evento descartado del histórico
+        long droppedUpTo;
+
+        volatile long lastActivity = System.currentTimeMillis();
+
+        Channel(long startId) {
+            this.startId = startId;
+        }
+
+        void completeAll() {
+            for (Subscriber subscriber : new ArrayList<>(subscribers)) {
+                subscriber.complete();
+            }
+        }
+    }
+
+    private final class Subscriber implements Runnable {
+
+        private final Channel channel;
+
+        private final SseEmitter emitter;
+
+        private final int capacity;
+
+        private final boolean coalesce;
+
+        // Pendiente de enviar, en orden de llegada. La clave es el propio elemento o, si se
+        // fusiona, el pedido: un cambio nuevo sustituye al pendiente del mismo pedido
+        private final LinkedHashMap<Object, Object> pending = new LinkedHashMap<>();
+
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private volatile boolean closed;
+
+        Subscriber(Channel channel, SseEmitter emitter, int capacity, boolean coalesce) {
+            this.channel = channel;
+            this.emitter = emitter;
+            this.capacity = capacity;
+            this.coalesce = coalesce;
+        }
+
+        void offer(Object item) {
+            if (closed) {
+                return;
+            }
+            Object key = coalesce && item instanceof OrderEvent event ? event.orderId() : item;
+            boolean full;
+            synchronized (pending) {
+                full = !pending.containsKey(key) && pending.size() >= capacity;
+                if (!full) {
+                    pending.put(key, item);
+                }
+            }
+            if (full) {
+                // Cliente lento: se corta y al reconectar recupera lo perdido con Last-Event-ID
+                complete();
+                return;
+            }
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(this);
+            }
+        }
+
+        private Object poll() {
+            synchronized (pending) {
+                Iterator<Object> items = pending.values().iterator();
+                if (!items.hasNext()) {
+                    return null;
+                }
+                Object item = items.next();
+                items.remove();
+                return item;
+            }
+        }
+
+        private boolean hasPending() {
+            synchronized (pending) {
+                return !pending.isEmpty();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                do {
+                    Object item;
+                    while (!closed && (item = poll()) != null) {
+                        send(item);
+                    }
+                    sending.set(false);
+                    // Algo pudo entrar justo después del último poll
+                } while (!closed && hasPending() && sending.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+        }
+
+        private void send(Object item) throws IOException {
+            if (item == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else if (item == RESYNC) {
+                emitter.send(SseEmitter.event().name(RESYNC).id(String.valueOf(toId(sequence.get())))
+                        .data("{}", MediaType.APPLICATION_JSON));
+            } else {
+                OrderEvent event = (OrderEvent) item;
+                emitter.send(SseEmitter.event().id(String.valueOf(event.id())).name(event.type()).data(event,
+                        MediaType.APPLICATION_JSON));
+            }
+        }
+
+        void complete() {
+            close();
+            try {
+                emitter.complete();
+            } catch (Exception e) {
+                // La conexión ya estaba cerrada
+            }
+        }
+
+        void close() {
+            closed = true;
+            channel.subscribers.remove(this);
+            channel.lastActivity = System.currentTimeMillis();
+            synchronized (pending) {
+                pending.clear();
+            }
+        }
+    }
+}
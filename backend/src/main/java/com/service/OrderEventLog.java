@@ -0,0 +1,103 @@
+package com.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.model.Order;
+import com.model.OrderLogEvent;
+import com.model.OrderLogEventType;
+import com.model.OrderStatus;
+import com.repository.OrderLogEventRepository;
+
+/**
+ * Registro de eventos de pedidos (tabla {@code order_event_log}).
+ *
+ * Crear, cambiar de estado y cancelar un pedido insertan su evento en la misma
+ * transacción que el cambio (Hibernate lo agrupa en el lote JDBC del commit), así que
+ * un evento existe si y solo si el cambio se confirmó. Lo único diferido es aplicarlo
+ * a {@link OrderProjections}: tras el commit el evento se encola en memoria y el ciclo
+ * periódico lo aplica, de modo que las proyecciones solo ven eventos ya guardados y
+ * una caída solo pierde lo que {@link OrderProjections#rebuild()} recupera al arrancar.
+ */
+@Component
+public class OrderEventLog {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderEventLog.class);
+
+    @Autowired
+    private OrderLogEventRepository orderLogEventRepository;
+
+    @Autowired
+    private OrderProjections orderProjections;
+
+    @Value("${zentro.orders.log.batch-size:200}")
+    private int batchSize;
+
+    // Eventos confirmados pendientes de aplicar a las proyecciones, en orden de commit
+    private final ConcurrentLinkedDeque<OrderLogEvent> committed = new ConcurrentLinkedDeque<>();
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void created(Order order) {
+        append(order.getId(), order.getRestaurant() == null ? null : order.getRestaurant().getId(),
+                order.getCustomer() == null ? null : order.getCustomer().getId(), OrderLogEventType.CREATED,
+                order.getOrderStatus(), null, order.getTotalPrice());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void statusChanged(Long orderId, Long restaurantId, Long customerId, OrderStatus status,
+            OrderStatus previous, Long totalPrice) {
+        append(orderId, restaurantId, customerId, OrderLogEventType.STATUS_CHANGED, status, previous, totalPrice);
+    }
+
+    // El pedido ya está borrado: se registra con lo que devolvió el DELETE
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cancelled(Long orderId, Long restaurantId, Long customerId, OrderStatus previous, Long totalPrice) {
+        append(orderId, restaurantId, customerId, OrderLogEventType.CANCELLED, null, previous, totalPrice);
+    }
+
+    private void append(Long orderId, Long restaurantId, Long customerId, OrderLogEventType type,
+            OrderStatus status, OrderStatus previousStatus, Long totalPrice) {
+        OrderLogEvent event = orderLogEventRepository.save(new OrderLogEvent(null, orderId, restaurantId,
+                customerId, type, status, previousStatus, totalPrice, new Date()));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                committed.addLast(event);
+            }
+        });
+    }
+
+    public List<OrderLogEvent> findByOrderId(Long orderId) {
+        return orderLogEventRepository.findByOrderIdOrderByOccurredAtAscIdAsc(orderId);
+    }
+
+    @Scheduled(fixedDelayString = "${zentro.orders.log.apply-ms:1000}")
+    public synchronized void applyCommitted() {
+        while (!committed.isEmpty()) {
+            List<OrderLogEvent> batch = new ArrayList<>(batchSize);
+            OrderLogEvent event;
+            while (batch.size() < batchSize && (event = committed.pollFirst()) != null) {
+                batch.add(event);
+            }
+            try {
+                orderProjections.apply(batch);
+            } catch (RuntimeException e) {
+                // Los eventos ya están guardados: las proyecciones los recuperan al reconstruirse
+                log.error("Applying {} order events to projections failed", batch.size(), e);
+            }
+        }
+    }
+}
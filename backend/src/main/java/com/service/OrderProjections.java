@@ -0,0 +1,234 @@
+package com.service;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.model.OrderLogEvent;
+import com.model.OrderStatus;
+import com.repository.OrderLogEventRepository;
+import com.response.StageTiming;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Proyecciones del registro de eventos de pedidos, mantenidas evento a evento sin
+ * consultar {@code orders}:
+ * - estado actual y momento de entrada en él de cada pedido en curso;
+ * - por restaurante, cuántos pedidos pasaron por cada estado y cuánto tiempo estuvieron
+ *   (PENDING = preparación, OUT_FOR_DELIVERY = reparto...) más el total hasta COMPLETED,
+ *   en AtomicLongArray como OrderStatusCounters, y los mismos tiempos en Micrometer.
+ *
+ * Al arrancar se reconstruyen reproduciendo el registro de las últimas
+ * {@code zentro.orders.log.replay-hours}; los pedidos que llevan más tiempo sin cambiar
+ * se dejan de seguir. Los tiempos acumulados cubren por tanto desde el inicio de esa
+ * ventana ({@link #timingsSince()}), que se mueve con cada reinicio: no son históricos.
+ * Cada instancia aplica sus propios eventos, así que los cambios hechos en otra solo se
+ * ven tras reconstruir.
+ *
+ * Los eventos en vivo llegan de {@link OrderEventLog} después de su commit, así que uno
+ * confirmado mientras se reproduce puede llegar por las dos vías. La reproducción
+ * recuerda los ids de los eventos recientes que ya contó y esos se descartan si llegan
+ * después en vivo; lo que no vio (confirmado tras leer su página) llega en vivo.
+ */
+@Component
+public class OrderProjections {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderProjections.class);
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    // Posición del tiempo total (creación -> COMPLETED) en los arrays de tiempos
+    private static final int TOTAL = STATUSES.length;
+
+    private static final int REPLAY_PAGE = 1000;
+
+    // Un evento tarda como mucho esto desde que ocurre hasta que se aplica en vivo
+    private static final long FENCE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    @Autowired
+    private OrderLogEventRepository orderLogEventRepository;
+
+    @Value("${zentro.orders.log.replay-hours:24}")
+    private long replayHours;
+
+    private final ConcurrentHashMap<Long, Timeline> active = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, Timings> timings = new ConcurrentHashMap<>();
+
+    private final Timer[] stageTimers = new Timer[STATUSES.length + 1];
+
+    // Ids de eventos recientes ya contados por la última reproducción, y hasta cuándo vigilarlos
+    private final Set<Long> replayed = new HashSet<>();
+
+    private long replayedUntil;
+
+    // Inicio de la ventana reproducida en la última reconstrucción: desde ahí cuentan los tiempos
+    private volatile Date timingsSince = new Date();
+
+    public OrderProjections(MeterRegistry meterRegistry) {
+        for (OrderStatus status : STATUSES) {
+            stageTimers[status.ordinal()] = Timer.builder("zentro.orders.stage")
+                    .description("Time an order spends in a status")
+                    .tag("status", status.name())
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+        }
+        stageTimers[TOTAL] = Timer.builder("zentro.orders.completion")
+                .description("Time from order creation to COMPLETED")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    // Pedido en curso: estado actual y cuándo se creó y entró en él
+    private static final class Timeline {
+
+        final Long restaurantId;
+
+        final long createdAt;
+
+        OrderStatus status;
+
+        long enteredAt;
+
+        Timeline(Long restaurantId, OrderStatus status, long createdAt) {
+            this.restaurantId = restaurantId;
+            this.status = status;
+            this.createdAt = createdAt;
+            this.enteredAt = createdAt;
+        }
+    }
+
+    // Por estado (y TOTAL): pedidos medidos y suma de milisegundos
+    private static final class Timings {
+
+        final AtomicLongArray counts = new AtomicLongArray(STATUSES.length + 1);
+
+        final AtomicLongArray millis = new AtomicLongArray(STATUSES.length + 1);
+    }
+
+    public synchronized void apply(List<OrderLogEvent> events) {
+        if (!replayed.isEmpty() && System.currentTimeMillis() > replayedUntil) {
+            replayed.clear();
+        }
+        for (OrderLogEvent event : events) {
+            // Ya contado al reproducir
+            if (!replayed.isEmpty() && replayed.remove(event.getId())) {
+                continue;
+            }
+            apply(event, true);
+        }
+    }
+
+    private void apply(OrderLogEvent event, boolean live) {
+        long at = event.getOccurredAt().getTime();
+        switch (event.getType()) {
+            case CREATED -> active.put(event.getOrderId(), new Timeline(event.getRestaurantId(), event.getStatus(), at));
+            case STATUS_CHANGED -> {
+                Timeline timeline = active.get(event.getOrderId());
+                if (timeline == null) {
+                    // Creado antes de la ventana reproducida o en otra instancia
+                    return;
+                }
+                record(timeline.restaurantId, timeline.status.ordinal(), at - timeline.enteredAt, live);
+                timeline.status = event.getStatus();
+                timeline.enteredAt = at;
+                if (event.getStatus() == OrderStatus.COMPLETED) {
+                    record(timeline.restaurantId, TOTAL, at - timeline.createdAt, live);
+                    active.remove(event.getOrderId());
+                }
+            }
+            case CANCELLED -> active.remove(event.getOrderId());
+        }
+    }
+
+    private void record(Long restaurantId, int stage, long elapsed, boolean live) {
+        if (restaurantId == null || elapsed < 0) {
+            return;
+        }
+        Timings restaurant = timings.computeIfAbsent(restaurantId, id -> new Timings());
+        restaurant.counts.incrementAndGet(stage);
+        restaurant.millis.addAndGet(stage, elapsed);
+        // Al reproducir no se registra: serían muestras antiguas contadas como nuevas
+        if (live) {
+            stageTimers[stage].record(elapsed, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Tiempo medio por estado del restaurante más "TOTAL" (creación -> COMPLETED)
+    public Map<String, StageTiming> timings(Long restaurantId) {
+        Map<String, StageTiming> result = new LinkedHashMap<>();
+        Timings restaurant = timings.get(restaurantId);
+        for (OrderStatus status : STATUSES) {
+            if (status != OrderStatus.COMPLETED) {
+                result.put(status.name(), timing(restaurant, status.ordinal()));
+            }
+        }
+        result.put("TOTAL", timing(restaurant, TOTAL));
+        return result;
+    }
+
+    public Date timingsSince() {
+        return timingsSince;
+    }
+
+    private static StageTiming timing(Timings restaurant, int stage) {
+        long count = restaurant == null ? 0 : restaurant.counts.get(stage);
+        long millis = restaurant == null ? 0 : restaurant.millis.get(stage);
+        return new StageTiming(count, count == 0 ? 0 : millis / count / 1000.0);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        // Mientras dura no se aplica nada en vivo (mismo monitor): lo confirmado durante la
+        // reproducción espera en la cola de OrderEventLog y los ids recientes la separan
+        active.clear();
+        timings.clear();
+        replayed.clear();
+        long now = System.currentTimeMillis();
+        long fenceFrom = now - FENCE_MILLIS;
+        replayedUntil = now + FENCE_MILLIS;
+        Date afterAt = new Date(now - TimeUnit.HOURS.toMillis(replayHours));
+        timingsSince = afterAt;
+        Long afterId = -1L;
+        int count = 0;
+        List<OrderLogEvent> page;
+        do {
+            page = orderLogEventRepository.findReplayPage(afterAt, afterId, PageRequest.of(0, REPLAY_PAGE));
+            for (OrderLogEvent event : page) {
+                apply(event, false);
+                if (event.getOccurredAt().getTime() >= fenceFrom) {
+                    replayed.add(event.getId());
+                }
+                afterAt = event.getOccurredAt();
+                afterId = event.getId();
+            }
+            count += page.size();
+        } while (page.size() == REPLAY_PAGE);
+        log.info("Replayed {} order events since {} into projections", count, timingsSince);
+    }
+
+    // Deja de seguir pedidos sin cambios dentro de la ventana (p. ej. COMPLETED ya archivados)
+    @Scheduled(fixedDelayString = "${zentro.orders.log.prune-ms:600000}")
+    public synchronized void prune() {
+        long before = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(replayHours);
+        active.values().removeIf(timeline -> timeline.enteredAt < before);
+    }
+}
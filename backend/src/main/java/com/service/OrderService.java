@@ -1,24 +1,54 @@
 package com.service;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import com.model.Order;
+import com.model.OrderLogEvent;
+import com.model.OrderStatus;
 import com.model.User;
 import com.request.OrderRequest;
+import com.response.OrderPage;
+import com.response.StageTiming;
 
 public interface OrderService {
 
     public Order createOrder(OrderRequest order, User user) throws Exception;
 
+    // inTransaction recibe el pedido guardado dentro de la transacción que lo crea
+    public Order createOrder(OrderRequest order, User user, Consumer<Order> inTransaction) throws Exception;
+
     public Order updateOrder(Long orderId, String orderStatus) throws Exception;
     
+    // Solo mientras el pedido está en un estado cancelable (OrderStatus.cancellable)
     public void cancelOrder(Long orderId) throws Exception;
 
-    public List<Order> getUsersOrder(Long userId) throws Exception;
+    // Páginas con cursor, de más reciente a más antiguo; from/to y el estado son opcionales.
+    // Los pedidos archivados solo se incluyen con includeArchived (o un from anterior al archivo)
+    public OrderPage getUsersOrder(Long userId, String orderStatus, String cursor, Integer limit,
+            boolean includeArchived) throws Exception;
 
-    public List<Order> getRestaurantOrder(Long restaurantId, String orderStatus) throws Exception;
+    public OrderPage getRestaurantOrder(Long restaurantId, String orderStatus, Date from, Date to, String cursor,
+            Integer limit, boolean includeArchived) throws Exception;
 
     public Order findOrderById(Long orderId) throws Exception;
 
+    // Restaurante del pedido sin cargarlo, para comprobar quién puede tocarlo
+    public Long findRestaurantIdOfOrder(Long orderId) throws Exception;
+
+    // Pedidos por estado del restaurante, desde contadores en memoria
+    public Map<OrderStatus, Long> getRestaurantOrderSummary(Long restaurantId);
+
+    // Tiempo medio por estado del restaurante, desde las proyecciones del registro de eventos
+    public Map<String, StageTiming> getRestaurantOrderTimings(Long restaurantId);
+
+    // Desde cuándo cuentan esos tiempos: inicio de la ventana reproducida al arrancar
+    public Date getOrderTimingsSince();
+
+    // Eventos del pedido en el orden en que ocurrieron (también de pedidos archivados o cancelados)
+    public List<OrderLogEvent> getOrderHistory(Long orderId);
+
 
 }
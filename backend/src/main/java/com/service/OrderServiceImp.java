@@ -1,35 +1,69 @@
 package com.service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.dto.OrderEvent;
 import com.model.Address;
+import com.model.ArchivedOrder;
 import com.model.Cart;
 import com.model.CartItem;
 import com.model.Order;
 import com.model.OrderItem;
+import com.model.OrderLogEvent;
+import com.model.OrderStatus;
 import com.model.Restaurant;
 import com.model.User;
 import com.repository.AddressRepository;
+import com.repository.ArchivedOrderRepository;
 import com.repository.OrderItemRepository;
 import com.repository.OrderRepository;
 import com.repository.UserRepository;
 import com.request.OrderRequest;
+import com.response.OrderPage;
+import com.response.StageTiming;
 
 @Service
 public class OrderServiceImp implements OrderService {
 
+    // Límites de las consultas con cursor (sin filtro de fechas)
+    private static final Date MIN_DATE = new Date(0);
+    private static final Date MAX_DATE = Date.from(Instant.parse("9999-12-31T00:00:00Z"));
+
+    private static final Comparator<Order> NEWEST_FIRST = Comparator.comparing(Order::getCratedAt)
+            .thenComparing(Order::getId).reversed();
+
+    @Value("${zentro.orders.page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${zentro.orders.max-page-size:200}")
+    private int maxPageSize;
+
     @Autowired
     private OrderItemRepository orderItemRepository;
 
     @Autowired
     private OrderRepository orderRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private OrderArchiver orderArchiver;
     
     @Autowired
     private AddressRepository addressRepository;
@@ -43,87 +77,285 @@ public class OrderServiceImp implements OrderService {
     @Autowired
     private CartService cartService;
 
+    @Autowired
+    private UserIdentityCache userIdentityCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OrderStatusCounters orderStatusCounters;
+
+    @Autowired
+    private OrderEventBus orderEventBus;
+
+    @Autowired
+    private OrderEventLog orderEventLog;
+
+    @Autowired
+    private OrderProjections orderProjections;
+
 
     @Override
     public Order createOrder(OrderRequest order, User user) throws Exception {
+        return createOrder(order, user, null);
+    }
 
-        Address shippAddress = order.getDeliveryAddress();
-        Address savedAddress = addressRepository.save(shippAddress);
-        
-        if(!user.getAddresses().contains(savedAddress)){
-            user.getAddresses().add(savedAddress);
-            userRepository.save(user);
-        }
+    @Override
+    public Order createOrder(OrderRequest order, User user, Consumer<Order> inTransaction) throws Exception {
 
         Restaurant restaurant = restaurantService.findRestaurantByID(order.getRestaurantId());
 
-        Order createdOrder = new Order();
-        createdOrder.setCustomer(user);
-        createdOrder.setCratedAt(new Date());
-        createdOrder.setOrderStatus("PENDING");
-        createdOrder.setDeliveryAddress(savedAddress);
-        createdOrder.setRestaurant(restaurant);
-
+        // El carrito vive en memoria: su estado final se escribe antes de crear el pedido
+        cartService.flushCart(user.getId());
         Cart cart = cartService.findCartByUserId(user.getId());
 
-        List<OrderItem> orderItems = new ArrayList<>();
-
+        List<OrderItem> orderItems = new ArrayList<>(cart.getItems().size());
         for (CartItem cartItem : cart.getItems()) {
             OrderItem orderItem = new OrderItem();
             orderItem.setFood(cartItem.getFood());
-            orderItem.setIngredients(cartItem.getIngredients());
+            orderItem.setIngredientIds(cartItem.getIngredientIds());
             orderItem.setQuantity(cartItem.getQuantity());
             orderItem.setTotalPrice(cartItem.getTotalPrice());
-
-            OrderItem savedOrderItem = orderItemRepository.save(orderItem);
-            orderItems.add(savedOrderItem);
+            orderItems.add(orderItem);
         }
-        Long totalPrice = cartService.calculateTotalCart(cart);
 
+        Order createdOrder = new Order();
+        createdOrder.setCustomer(user);
+        createdOrder.setCratedAt(new Date());
+        createdOrder.setOrderStatus(OrderStatus.PENDING);
+        createdOrder.setRestaurant(restaurant);
         createdOrder.setItems(orderItems);
-        createdOrder.setTotalPrice(totalPrice);
-
-        Order savedOrder = orderRepository.save(createdOrder);
-        restaurant.getOrders().add(savedOrder);
+        createdOrder.setTotalPrice(cart.getTotal());
 
+        // Una sola transacción: Hibernate agrupa los INSERT por tabla y los manda en lotes
+        // JDBC al hacer commit (hibernate.jdbc.batch_size, order_inserts)
+        Order savedOrder = transactionTemplate.execute(status -> {
+            Address savedAddress = addressRepository.save(order.getDeliveryAddress());
+            if (!user.getAddresses().contains(savedAddress)) {
+                // El usuario puede venir de la caché de identidad: se modifica la instancia gestionada
+                User managedUser = userRepository.findById(user.getId()).orElse(user);
+                managedUser.getAddresses().add(savedAddress);
+                userRepository.save(managedUser);
+            }
+            createdOrder.setDeliveryAddress(savedAddress);
+            orderItemRepository.saveAll(orderItems);
+            Order saved = orderRepository.save(createdOrder);
+            orderEventLog.created(saved);
+            if (inTransaction != null) {
+                inTransaction.accept(saved);
+            }
+            return saved;
+        });
+        if (!user.getAddresses().contains(savedOrder.getDeliveryAddress())) {
+            userIdentityCache.evict(user.getEmail());
+        }
+        orderStatusCounters.created(restaurant.getId(), OrderStatus.PENDING);
+        orderEventBus.publish(new OrderEvent(0, OrderEvent.CREATED, savedOrder.getId(), restaurant.getId(),
+                user.getId(), OrderStatus.PENDING, null, savedOrder.getTotalPrice(), savedOrder.getCratedAt()));
 
-        return createdOrder;
+        return savedOrder;
     }
 
     @Override
     public Order updateOrder(Long orderId, String orderStatus) throws Exception {
-        Order order = findOrderById(orderId);
-        if(orderStatus.equals("OUT_FOR_DELIVERY") 
-                || orderStatus.equals("DELIVERED") 
-                || orderStatus.equals("COMPLETED")
-                || orderStatus.equals("PENDING")
-        ){
-            order.setOrderStatus(orderStatus);
-            return orderRepository.save(order);
+        OrderStatus target = OrderStatus.parse(orderStatus);
+        if (target == null) {
+            throw new Exception("Please select a valid status");
+        }
+
+        // El UPDATE solo aplica si el estado actual permite llegar a target
+        List<String> sources = new ArrayList<>();
+        for (OrderStatus source : OrderStatus.sourcesOf(target)) {
+            sources.add(source.name());
+        }
+        // El evento del registro se inserta en la misma transacción que el cambio
+        List<OrderRepository.StatusChange> changes = sources.isEmpty() ? List.of()
+                : transactionTemplate.execute(status -> {
+                    List<OrderRepository.StatusChange> changed = orderRepository.transitionStatus(orderId,
+                            target.name(), sources);
+                    for (OrderRepository.StatusChange change : changed) {
+                        orderEventLog.statusChanged(orderId, change.getRestaurantId(), change.getCustomerId(),
+                                target, OrderStatus.parse(change.getPreviousStatus()), change.getTotalPrice());
+                    }
+                    return changed;
+                });
+        if (changes.isEmpty()) {
+            OrderStatus current = orderRepository.findStatusById(orderId);
+            if (current == null && !orderRepository.existsById(orderId)) {
+                throw new Exception("Order not found");
+            }
+            throw new Exception("Cannot change order status from " + current + " to " + target);
         }
 
-        throw new Exception("Please select a valid status");
+        OrderRepository.StatusChange change = changes.get(0);
+        OrderStatus previous = OrderStatus.parse(change.getPreviousStatus());
+        orderStatusCounters.transitioned(change.getRestaurantId(), previous, target);
+        Order order = findOrderById(orderId);
+        orderEventBus.publish(new OrderEvent(0, OrderEvent.STATUS_CHANGED, orderId, change.getRestaurantId(),
+                change.getCustomerId(), target, previous, change.getTotalPrice(), order.getCratedAt()));
+        return order;
     }
 
     @Override
     public void cancelOrder(Long orderId) throws Exception {
-        Order order = findOrderById(orderId);
-        orderRepository.deleteById(orderId);
+        // El DELETE solo aplica si el pedido sigue en un estado cancelable; el evento del
+        // registro se inserta en la misma transacción
+        List<String> cancellable = new ArrayList<>();
+        for (OrderStatus status : OrderStatus.cancellable()) {
+            cancellable.add(status.name());
+        }
+        List<OrderRepository.CancelledOrder> cancelled = transactionTemplate.execute(status -> {
+            List<OrderRepository.CancelledOrder> deleted = orderRepository.deleteIfCancellable(orderId, cancellable);
+            for (OrderRepository.CancelledOrder order : deleted) {
+                orderEventLog.cancelled(orderId, order.getRestaurantId(), order.getCustomerId(),
+                        OrderStatus.parse(order.getStatus()), order.getTotalPrice());
+            }
+            return deleted;
+        });
+        if (cancelled.isEmpty()) {
+            OrderStatus current = orderRepository.findStatusById(orderId);
+            if (current == null && !orderRepository.existsById(orderId)) {
+                throw new Exception("Order not found");
+            }
+            throw new Exception("Cannot cancel an order in status " + current);
+        }
+
+        OrderRepository.CancelledOrder order = cancelled.get(0);
+        OrderStatus previous = OrderStatus.parse(order.getStatus());
+        if (order.getRestaurantId() != null) {
+            orderStatusCounters.removed(order.getRestaurantId(), previous);
+        }
+        orderEventBus.publish(new OrderEvent(0, OrderEvent.CANCELLED, orderId, order.getRestaurantId(),
+                order.getCustomerId(), null, previous, order.getTotalPrice(), order.getCratedAt()));
+    }
+
+    @Override
+    public Long findRestaurantIdOfOrder(Long orderId) throws Exception {
+        Long restaurantId = orderRepository.findRestaurantIdById(orderId);
+        if (restaurantId == null && !orderRepository.existsById(orderId)) {
+            throw new Exception("Order not found");
+        }
+        return restaurantId;
+    }
+
+    @Override
+    public Map<OrderStatus, Long> getRestaurantOrderSummary(Long restaurantId) {
+        return orderStatusCounters.summary(restaurantId);
     }
 
     @Override
-    public List<Order> getUsersOrder(Long userId) throws Exception {
-        return orderRepository.findByCustomerId(userId);
+    public Map<String, StageTiming> getRestaurantOrderTimings(Long restaurantId) {
+        return orderProjections.timings(restaurantId);
     }
 
     @Override
-    public List<Order> getRestaurantOrder(Long restaurantId, String orderStatus) throws Exception {
-        List<Order> orders = orderRepository.findByRestaurantId(restaurantId);
-        if(orderStatus != null){
-            orders = orders.stream().filter(order->
-                order.getOrderStatus().equals(orderStatus)).collect(Collectors.toList());
+    public Date getOrderTimingsSince() {
+        return orderProjections.timingsSince();
+    }
+
+    @Override
+    public List<OrderLogEvent> getOrderHistory(Long orderId) {
+        return orderEventLog.findByOrderId(orderId);
+    }
+
+    @Override
+    public OrderPage getUsersOrder(Long userId, String orderStatus, String cursor, Integer limit,
+            boolean includeArchived) throws Exception {
+        int size = pageSize(limit);
+        Cursor after = decodeCursor(cursor);
+        OrderStatus status = parseFilter(orderStatus);
+        List<Order> orders = orderRepository.findCustomerPage(userId, status, MIN_DATE, MAX_DATE,
+                after.cratedAt(), after.id(), PageRequest.of(0, size + 1));
+        if (includeArchived) {
+            orders = withArchived(orders, archivedOrderRepository.findCustomerPage(userId, status, MIN_DATE,
+                    MAX_DATE, after.cratedAt(), after.id(), PageRequest.of(0, size + 1)), size + 1);
         }
-        return orders;
+        return toPage(orders, size);
+    }
+
+    @Override
+    public OrderPage getRestaurantOrder(Long restaurantId, String orderStatus, Date from, Date to, String cursor,
+            Integer limit, boolean includeArchived) throws Exception {
+        int size = pageSize(limit);
+        Cursor after = decodeCursor(cursor);
+        OrderStatus status = parseFilter(orderStatus);
+        Date since = from == null ? MIN_DATE : from;
+        Date until = to == null ? MAX_DATE : to;
+        List<Order> orders = orderRepository.findRestaurantPage(restaurantId, status, since, until,
+                after.cratedAt(), after.id(), PageRequest.of(0, size + 1));
+        // Un rango que empieza antes del archivo también lo pide
+        if (includeArchived || (from != null && from.before(orderArchiver.archiveHorizon()))) {
+            orders = withArchived(orders, archivedOrderRepository.findRestaurantPage(restaurantId, status, since,
+                    until, after.cratedAt(), after.id(), PageRequest.of(0, size + 1)), size + 1);
+        }
+        return toPage(orders, size);
+    }
+
+    // Las dos consultas usan el mismo keyset, así que el cursor sirve para ambas tablas:
+    // se mezclan en orden (cratedAt, id) descendente y se corta al límite
+    private List<Order> withArchived(List<Order> orders, List<ArchivedOrder> archived, int limit) {
+        if (archived.isEmpty()) {
+            return orders;
+        }
+        List<Order> merged = new ArrayList<>(orders);
+        for (ArchivedOrder order : archived) {
+            merged.add(order.toOrder());
+        }
+        merged.sort(NEWEST_FIRST);
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
+
+    private OrderStatus parseFilter(String orderStatus) throws Exception {
+        OrderStatus status = OrderStatus.parse(orderStatus);
+        if (orderStatus != null && status == null) {
+            throw new Exception("Invalid order status: " + orderStatus);
+        }
+        return status;
+    }
+
+    private int pageSize(Integer limit) throws Exception {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1 || limit > maxPageSize) {
+            throw new Exception("limit must be between 1 and " + maxPageSize);
+        }
+        return limit;
+    }
+
+    // Se pide un pedido de más: si llega, hay página siguiente y empieza después del último devuelto
+    private OrderPage toPage(List<Order> orders, int size) {
+        if (orders.size() <= size) {
+            return new OrderPage(orders, null);
+        }
+        List<Order> page = new ArrayList<>(orders.subList(0, size));
+        Order last = page.get(size - 1);
+        return new OrderPage(page, encodeCursor(last.getCratedAt(), last.getId()));
+    }
+
+    // Cursor opaco: "<epoch millis de cratedAt>:<id>" en base64 url-safe
+    static String encodeCursor(Date cratedAt, Long id) {
+        String raw = cratedAt.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Sin cursor se empieza por el pedido más reciente
+    static Cursor decodeCursor(String cursor) throws Exception {
+        if (cursor == null || cursor.isBlank()) {
+            return new Cursor(MAX_DATE, Long.MAX_VALUE);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int colon = raw.indexOf(':');
+            return new Cursor(new Date(Long.parseLong(raw.substring(0, colon))),
+                    Long.parseLong(raw.substring(colon + 1)));
+        } catch (RuntimeException e) {
+            throw new Exception("Invalid cursor");
+        }
+    }
+
+    record Cursor(Date cratedAt, long id) {
     }
 
     @Override
@@ -0,0 +1,82 @@
+package com.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.model.OrderStatus;
+import com.repository.OrderRepository;
+
+/**
+ * Número de pedidos por estado de cada restaurante, para el resumen de la pantalla de
+ * cocina sin contar filas en cada refresco.
+ *
+ * Un AtomicLongArray por restaurante (una posición por estado): crear, avanzar y
+ * cancelar pedidos solo hacen incrementos atómicos, sin locks. Se reconstruye desde la
+ * BD al arrancar y periódicamente, lo que corrige cambios hechos por otras instancias.
+ */
+@Component
+public class OrderStatusCounters {
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private volatile ConcurrentHashMap<Long, AtomicLongArray> counters = new ConcurrentHashMap<>();
+
+    public void created(Long restaurantId, OrderStatus status) {
+        add(restaurantId, status, 1);
+    }
+
+    public void transitioned(Long restaurantId, OrderStatus from, OrderStatus to) {
+        add(restaurantId, from, -1);
+        add(restaurantId, to, 1);
+    }
+
+    public void removed(Long restaurantId, OrderStatus status) {
+        add(restaurantId, status, -1);
+    }
+
+    public void clear(Long restaurantId) {
+        counters.remove(restaurantId);
+    }
+
+    public Map<OrderStatus, Long> summary(Long restaurantId) {
+        Map<OrderStatus, Long> summary = new EnumMap<>(OrderStatus.class);
+        AtomicLongArray counts = counters.get(restaurantId);
+        for (OrderStatus status : STATUSES) {
+            summary.put(status, counts == null ? 0 : Math.max(0, counts.get(status.ordinal())));
+        }
+        return summary;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${zentro.orders.counters.resync-ms:300000}",
+            fixedDelayString = "${zentro.orders.counters.resync-ms:300000}")
+    public void rebuild() {
+        // Se construye aparte y se cambia de una vez: las lecturas nunca ven un mapa a medias.
+        // Un cambio que llegue mientras se cuenta puede perderse hasta la siguiente reconstrucción.
+        ConcurrentHashMap<Long, AtomicLongArray> rebuilt = new ConcurrentHashMap<>();
+        for (OrderRepository.StatusCount count : orderRepository.countByRestaurantAndStatus()) {
+            rebuilt.computeIfAbsent(count.getRestaurantId(), id -> new AtomicLongArray(STATUSES.length))
+                    .set(count.getStatus().ordinal(), count.getTotal());
+        }
+        counters = rebuilt;
+    }
+
+    private void add(Long restaurantId, OrderStatus status, long delta) {
+        if (restaurantId == null || status == null) {
+            return;
+        }
+        counters.computeIfAbsent(restaurantId, id -> new AtomicLongArray(STATUSES.length))
+                .addAndGet(status.ordinal(), delta);
+    }
+}
@@ -0,0 +1,11 @@
+package com.service;
+
+public interface PasswordHashService {
+
+    String encode(String rawPassword);
+
+    boolean matches(String rawPassword, String encodedPassword);
+
+    void rehashIfNeeded(String email, String rawPassword, String encodedPassword);
+
+}
@@ -0,0 +1,124 @@
+package com.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.config.CalibratedBCryptPasswordEncoder;
+import com.repository.UserRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ejecuta los hashes BCrypt en un pool propio y acotado.
+ *
+ * Un pico de logins ya no ocupa todos los hilos de Tomcat quemando CPU: como mucho
+ * {@code pool-size} hashes corren a la vez, hasta {@code queue-capacity} esperan y
+ * el resto se rechaza al instante con {@link RejectedExecutionException}.
+ */
+@Service
+public class PasswordHashServiceImp implements PasswordHashService {
+
+    private final CalibratedBCryptPasswordEncoder passwordEncoder;
+
+    private final UserRepository userRepository;
+
+    private final UserIdentityCache userIdentityCache;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long timeoutMillis;
+
+    public PasswordHashServiceImp(
+            CalibratedBCryptPasswordEncoder passwordEncoder,
+            UserRepository userRepository,
+            UserIdentityCache userIdentityCache,
+            @Value("${zentro.security.bcrypt.pool-size:0}") int poolSize,
+            @Value("${zentro.security.bcrypt.queue-capacity:32}") int queueCapacity,
+            @Value("${zentro.security.bcrypt.timeout-ms:5000}") long timeoutMillis) {
+
+        this.passwordEncoder = passwordEncoder;
+        this.userRepository = userRepository;
+        this.userIdentityCache = userIdentityCache;
+        this.timeoutMillis = timeoutMillis;
+
+        // Por defecto la mitad de los núcleos: el resto queda para el catálogo y el carrito
+        int threads = poolSize > 0 ? poolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(String rawPassword) {
+        return await(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return await(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Si el hash guardado tiene un coste distinto del calibrado, lo recalcula en
+     * segundo plano tras un login correcto. Si el pool está lleno se omite: se
+     * reintentará en el siguiente login.
+     */
+    @Override
+    public void rehashIfNeeded(String email, String rawPassword, String encodedPassword) {
+        if (!passwordEncoder.needsRehash(encodedPassword)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                String rehashed = passwordEncoder.encode(rawPassword);
+                // Solo sustituye el hash si nadie cambió la contraseña mientras tanto
+                if (userRepository.updatePasswordIfUnchanged(email, encodedPassword, rehashed) > 0) {
+                    userIdentityCache.evict(email);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Pool saturado: el rehash no es urgente
+        }
+    }
+
+    private <T> T await(Callable<T> task) {
+        Future<T> future = executor.submit(task);
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RejectedExecutionException("Password hashing timed out");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Password hashing interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
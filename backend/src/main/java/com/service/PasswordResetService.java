@@ -5,5 +5,13 @@ public interface PasswordResetService {
     void createPasswordResetToken(String email) throws Exception;
     
     void resetPassword(String token, String newPassword) throws Exception;
+
+    // Token inexistente, ya usado o expirado: su mensaje es fijo y se puede mostrar al usuario
+    class InvalidResetTokenException extends Exception {
+
+        public InvalidResetTokenException(String message) {
+            super(message);
+        }
+    }
     
 }
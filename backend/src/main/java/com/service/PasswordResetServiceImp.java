@@ -1,10 +1,15 @@
 package com.service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,14 +31,21 @@ public class PasswordResetServiceImp implements PasswordResetService {
     private EmailService emailService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashService passwordHashService;
+
+    @Autowired
+    private UserIdentityCache userIdentityCache;
+
+    @Value("${zentro.security.reset-token.sweep-batch-size:500}")
+    private int sweepBatchSize;
 
     @Override
     @Transactional
     public void createPasswordResetToken(String email) throws Exception {
         User user = userRepository.findByEmail(email);
         if (user == null) {
-            throw new Exception("No existe un usuario con ese email");
+            // No se revela si el email está registrado
+            return;
         }
 
         // Generar token único
@@ -42,33 +54,57 @@ public class PasswordResetServiceImp implements PasswordResetService {
         // Eliminar tokens antiguos del usuario
         tokenRepository.deleteByUserId(user.getId());
 
-        // Crear nuevo token con expiración de 1 hora
+        // Crear nuevo token con expiración de 10 minutos; solo se guarda su hash
         PasswordResetToken resetToken = new PasswordResetToken();
-        resetToken.setToken(token);
+        resetToken.setTokenHash(hash(token));
         resetToken.setUser(user);
-        resetToken.setExpiryDate(LocalDateTime.now().plusHours(1));
+        resetToken.setExpiryDate(LocalDateTime.now().plusMinutes(10));
         
         tokenRepository.save(resetToken);
 
-        // Enviar email
+        // Encolar el email en la misma transacción: si el token no se guarda, no se envía nada
         emailService.sendPasswordResetEmail(user.getEmail(), token);
     }
 
     @Override
     @Transactional
     public void resetPassword(String token, String newPassword) throws Exception {
-        PasswordResetToken resetToken = tokenRepository.findByToken(token)
-                .orElseThrow(() -> new Exception("Token inválido"));
+        if (token == null || token.isBlank()) {
+            throw new InvalidResetTokenException("Token inválido o expirado");
+        }
+        PasswordResetToken resetToken = tokenRepository.findByTokenHash(hash(token))
+                .orElseThrow(() -> new InvalidResetTokenException("Token inválido o expirado"));
 
         if (resetToken.isExpired()) {
-            throw new Exception("El token ha expirado");
+            // El barrido programado se encarga de borrarlo
+            throw new InvalidResetTokenException("El token ha expirado");
         }
 
         User user = resetToken.getUser();
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHashService.encode(newPassword));
         userRepository.save(user);
+        userIdentityCache.evict(user.getEmail());
 
         // Eliminar el token usado
         tokenRepository.delete(resetToken);
     }
+
+    // 🧹 Borra los tokens expirados por lotes; cada lote es su propia transacción
+    @Scheduled(fixedDelayString = "${zentro.security.reset-token.sweep-ms:300000}")
+    public void purgeExpiredTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted;
+        do {
+            deleted = tokenRepository.deleteExpiredBatch(now, sweepBatchSize);
+        } while (deleted == sweepBatchSize);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(token.trim().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
@@ -6,12 +6,16 @@ import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.dto.RestaurantDto;
 import com.model.Address;
 import com.model.Restaurant;
 import com.model.User;
 import com.repository.AddressRepository;
+import com.repository.ArchivedOrderRepository;
+import com.repository.OrderLogEventRepository;
+import com.repository.OrderRepository;
 import com.repository.RestaurantRepository;
 import com.repository.UserRepository;
 import com.request.CreateRestaurantRequest;
@@ -28,6 +32,21 @@ public class RestaurantServiceImp implements RestaurantService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private OrderLogEventRepository orderLogEventRepository;
+
+    @Autowired
+    private OrderStatusCounters orderStatusCounters;
+
+    @Autowired
+    private UserIdentityCache userIdentityCache;
+
 	@Override
 	public Restaurant createRestaurant(CreateRestaurantRequest req, User user) {
 		// TODO Auto-generated method stub
@@ -67,10 +86,19 @@ public class RestaurantServiceImp implements RestaurantService {
 	}
 
 	@Override
+	@Transactional
 	public void deleteRestaurant(Long restaurantId) throws Exception {
 		// TODO Auto-generated method stub
 		Restaurant restaurant = findRestaurantByID(restaurantId); 
+        // Restaurant ya no tiene la colección de pedidos que los borraba en cascada: se
+        // borran en bloque, líneas antes que pedidos, sin cargarlos
+        orderRepository.deleteItemsByRestaurantId(restaurantId);
+        orderRepository.deleteByRestaurantId(restaurantId);
+        archivedOrderRepository.deleteItemsByRestaurantId(restaurantId);
+        archivedOrderRepository.deleteByRestaurantId(restaurantId);
+        orderLogEventRepository.deleteByRestaurantId(restaurantId);
         restaurantRepository.delete(restaurant);
+        orderStatusCounters.clear(restaurantId);
 	}
 
 	@Override
@@ -109,6 +137,7 @@ public class RestaurantServiceImp implements RestaurantService {
 	}
 
 	@Override
+	@Transactional
 	public RestaurantDto addToFavorite(Long restaurantId, User user) throws Exception {
 		// TODO Auto-generated method stub
 		Restaurant restaurant = findRestaurantByID(restaurantId);
@@ -119,8 +148,13 @@ public class RestaurantServiceImp implements RestaurantService {
         dto.setTitle(restaurant.getName());
         dto.setId(restaurantId);
 
+		// El usuario puede venir de la caché de identidad (compartido y desconectado):
+		// se modifica la instancia gestionada y después se invalida la caché
+		User managedUser = userRepository.findById(user.getId())
+				.orElseThrow(() -> new Exception("User not found"));
+
 		boolean isFavorited = false;
-		List<RestaurantDto> favorites = user.getFavorites();
+		List<RestaurantDto> favorites = managedUser.getFavorites();
 		for(RestaurantDto favorite : favorites) {
 			if(favorite.getId().equals(restaurantId)) {
 				isFavorited = true;
@@ -132,7 +166,8 @@ public class RestaurantServiceImp implements RestaurantService {
 		} else {
 			favorites.add(dto);
 		}
-		userRepository.save(user);
+		userRepository.save(managedUser);
+		userIdentityCache.evict(managedUser.getEmail());
 		return dto;
 	}
 	@Override
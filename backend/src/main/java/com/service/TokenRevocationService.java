@@ -0,0 +1,11 @@
+package com.service;
+
+import java.util.Date;
+
+public interface TokenRevocationService {
+
+    void revoke(String jti, Date expiresAt);
+
+    boolean isRevoked(String jti);
+
+}
@@ -0,0 +1,177 @@
+package com.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.model.RevokedToken;
+import com.repository.RevokedTokenRepository;
+
+/**
+ * Revocación de JWT (logout).
+ *
+ * Las revocaciones se persisten en {@code revoked_tokens} y se mantienen en memoria
+ * en un conjunto exacto precedido por un filtro de Bloom. Para el caso común (token
+ * no revocado) la comprobación en el filtro JWT son unas pocas lecturas de bits, sin
+ * tocar el mapa ni la BD. Un barrido periódico elimina las entradas ya expiradas,
+ * reconstruye el filtro y trae las revocaciones hechas por otras instancias.
+ */
+@Service
+public class TokenRevocationServiceImp implements TokenRevocationService {
+
+    private static final int BLOOM_BITS = 1 << 20; // 128 KB
+    private static final int BLOOM_PROBES = 4;
+    private static final long SYNC_OVERLAP_SECONDS = 5;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    // jti -> expiración (epoch millis)
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter bloom = new BloomFilter(BLOOM_BITS, BLOOM_PROBES);
+
+    private volatile LocalDateTime lastSync = LocalDateTime.now();
+
+    @Override
+    public void revoke(String jti, Date expiresAt) {
+        if (jti == null || expiresAt == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        revokedTokenRepository.save(new RevokedToken(jti, toLocalDateTime(expiresAt), now));
+        remember(jti, expiresAt.getTime());
+    }
+
+    @Override
+    public boolean isRevoked(String jti) {
+        if (jti == null || !bloom.mightContain(jti)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(jti);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevokedTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(now)) {
+            remember(token.getJti(), toEpochMillis(token.getExpiresAt()));
+        }
+        lastSync = now;
+    }
+
+    @Scheduled(fixedDelayString = "${zentro.security.revocation.sweep-ms:60000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+
+        // Revocaciones de otras instancias (con solape para no perder ninguna)
+        LocalDateTime since = lastSync.minusSeconds(SYNC_OVERLAP_SECONDS);
+        for (RevokedToken token : revokedTokenRepository.findByRevokedAtAfterAndExpiresAtAfter(since, now)) {
+            remember(token.getJti(), toEpochMillis(token.getExpiresAt()));
+        }
+        lastSync = now;
+
+        // Un filtro de Bloom no admite borrados: se reconstruye sin las entradas expiradas
+        long nowMillis = System.currentTimeMillis();
+        int before = revoked.size();
+        revoked.values().removeIf(expiresAt -> expiresAt <= nowMillis);
+        if (revoked.size() != before) {
+            BloomFilter rebuilt = new BloomFilter(BLOOM_BITS, BLOOM_PROBES);
+            revoked.keySet().forEach(rebuilt::put);
+            bloom = rebuilt;
+            // Las revocaciones que entraron mientras se reconstruía fueron al filtro anterior
+            revoked.keySet().forEach(rebuilt::put);
+        }
+
+        revokedTokenRepository.deleteExpired(now);
+    }
+
+    private void remember(String jti, long expiresAtMillis) {
+        revoked.put(jti, expiresAtMillis);
+        bloom.put(jti);
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Filtro de Bloom concurrente sobre un AtomicLongArray, con doble hashing
+     * (FNV-1a de 64 bits y una mezcla del mismo valor) para obtener las sondas.
+     */
+    static final class BloomFilter {
+
+        private final AtomicLongArray words;
+        private final int bits;
+        private final int probes;
+
+        BloomFilter(int bits, int probes) {
+            this.words = new AtomicLongArray(bits >>> 6);
+            this.bits = bits;
+            this.probes = probes;
+        }
+
+        void put(String value) {
+            long hash1 = fnv1a(value);
+            long hash2 = mix(hash1);
+            for (int i = 0; i < probes; i++) {
+                int bit = index(hash1 + i * hash2);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                long current;
+                do {
+                    current = words.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash1 = fnv1a(value);
+            long hash2 = mix(hash1);
+            for (int i = 0; i < probes; i++) {
+                int bit = index(hash1 + i * hash2);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int index(long hash) {
+            return (int) ((hash & Long.MAX_VALUE) % bits);
+        }
+
+        private static long fnv1a(String value) {
+            // Sobre los chars directamente para no reservar memoria en cada comprobación
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        private static long mix(long hash) {
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            return hash | 1L;
+        }
+    }
+}
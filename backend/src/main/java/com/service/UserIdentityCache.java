@@ -0,0 +1,183 @@
+package com.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.model.User;
+
+/**
+ * Caché de identidad de usuarios en dos niveles.
+ *
+ * Nivel 1: atributo de la petición actual, para que varias resoluciones del mismo
+ * usuario dentro de una petición devuelvan la misma instancia.
+ * Nivel 2: mapa acotado con TTL indexado por email (y un índice id -> email), que
+ * evita ir a la tabla {@code users} en cada petición de lectura.
+ *
+ * La caché guarda su propia copia y entrega copias de solo lectura (colecciones
+ * inmodificables): lo que una petición cambie en el usuario no lo ven las demás. Para
+ * modificarlo hay que cargar la entidad gestionada desde el repositorio.
+ *
+ * Las rutas que modifican al usuario deben llamar a {@link #evict(String)} o
+ * {@link #evictById(Long)}; la invalidación se repite al hacer commit para que una
+ * lectura concurrente no vuelva a cachear la fila antigua.
+ */
+@Component
+public class UserIdentityCache {
+
+    private static final String REQUEST_ATTRIBUTE_PREFIX = UserIdentityCache.class.getName() + ".";
+
+    @Value("${zentro.cache.user.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${zentro.cache.user.max-entries:5000}")
+    private int maxEntries;
+
+    private final ConcurrentHashMap<String, CachedUser> byEmail = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, String> emailById = new ConcurrentHashMap<>();
+
+    // Se incrementa en cada invalidación; una carga iniciada antes no se cachea
+    private final AtomicLong epoch = new AtomicLong();
+
+    public long currentEpoch() {
+        return epoch.get();
+    }
+
+    public User get(String email) {
+        if (email == null) {
+            return null;
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            Object user = request.getAttribute(REQUEST_ATTRIBUTE_PREFIX + email, RequestAttributes.SCOPE_REQUEST);
+            if (user instanceof User) {
+                return (User) user;
+            }
+        }
+
+        CachedUser cached = byEmail.get(email);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt() <= System.currentTimeMillis()) {
+            byEmail.remove(email, cached);
+            return null;
+        }
+        User user = readOnlyCopy(cached.user());
+        if (request != null) {
+            request.setAttribute(REQUEST_ATTRIBUTE_PREFIX + email, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    /**
+     * Guarda un usuario recién leído de la BD. Inicializa sus colecciones para que la
+     * instancia pueda servirse fuera de la sesión de Hibernate que la cargó.
+     *
+     * @param loadEpoch valor de {@link #currentEpoch()} antes de leer de la BD
+     */
+    public void put(User user, long loadEpoch) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.setAttribute(REQUEST_ATTRIBUTE_PREFIX + user.getEmail(), user, RequestAttributes.SCOPE_REQUEST);
+        }
+
+        Hibernate.initialize(user.getFavorites());
+        Hibernate.initialize(user.getAddresses());
+
+        if (epoch.get() != loadEpoch) {
+            return;
+        }
+        if (byEmail.size() >= maxEntries) {
+            evictExpired();
+        }
+        long expiresAt = System.currentTimeMillis() + ttlSeconds * 1000;
+        byEmail.put(user.getEmail(), new CachedUser(readOnlyCopy(user), expiresAt));
+        emailById.put(user.getId(), user.getEmail());
+    }
+
+    public void evict(String email) {
+        if (email == null) {
+            return;
+        }
+        doEvict(email);
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.removeAttribute(REQUEST_ATTRIBUTE_PREFIX + email, RequestAttributes.SCOPE_REQUEST);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvict(email);
+                }
+            });
+        }
+    }
+
+    public void evictById(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        String email = emailById.get(userId);
+        if (email != null) {
+            evict(email);
+        } else {
+            epoch.incrementAndGet();
+        }
+    }
+
+    private void doEvict(String email) {
+        epoch.incrementAndGet();
+        CachedUser removed = byEmail.remove(email);
+        if (removed != null) {
+            emailById.remove(removed.user().getId(), email);
+        }
+    }
+
+    // Primero descarta las entradas caducadas; si sigue lleno, libera una octava parte
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        byEmail.values().removeIf(entry -> entry.expiresAt() <= now);
+
+        int toRemove = byEmail.size() - maxEntries + maxEntries / 8;
+        Iterator<Map.Entry<String, CachedUser>> it = byEmail.entrySet().iterator();
+        while (toRemove-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+        emailById.values().retainAll(byEmail.keySet());
+    }
+
+    private static User readOnlyCopy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setFullName(user.getFullName());
+        copy.setEmail(user.getEmail());
+        copy.setPassword(user.getPassword());
+        copy.setRole(user.getRole());
+        copy.setProvider(user.getProvider());
+        copy.setProviderId(user.getProviderId());
+        copy.setProfileImage(user.getProfileImage());
+        copy.setPhoneNumber(user.getPhoneNumber());
+        copy.setAddress(user.getAddress());
+        copy.setFavorites(Collections.unmodifiableList(new ArrayList<>(user.getFavorites())));
+        copy.setAddresses(Collections.unmodifiableList(new ArrayList<>(user.getAddresses())));
+        return copy;
+    }
+
+    private record CachedUser(User user, long expiresAt) {
+    }
+}
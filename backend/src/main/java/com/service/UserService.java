@@ -1,6 +1,7 @@
 package com.service;
 
 import com.model.User;
+import com.request.UpdateProfileRequest;
 
 public interface UserService {
 
@@ -10,4 +11,9 @@ public interface UserService {
     
     public User updateUser(User user) throws Exception;
 
+    // Cambian la entidad gestionada, nunca el usuario de la caché de identidad
+    public User updateProfile(Long userId, UpdateProfileRequest request) throws Exception;
+
+    public User updateProfileImage(Long userId, String imageUrl) throws Exception;
+
 }
@@ -2,10 +2,12 @@ package com.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.config.JwtProvider;
 import com.model.User;
 import com.repository.UserRepository;
+import com.request.UpdateProfileRequest;
 
 @Service
 public class UserServiceImp implements UserService {
@@ -16,6 +18,9 @@ public class UserServiceImp implements UserService {
     @Autowired
     private JwtProvider jwtProvider;
 
+    @Autowired
+    private UserIdentityCache userIdentityCache;
+
     @Override
     public User findUserByJwtToken(String jwtToken) throws Exception {
         // Implementation here
@@ -25,18 +30,68 @@ public class UserServiceImp implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public User findUserByEmail(String email) throws Exception {
-        // Implementation here
-        User user = userRepository.findByEmail(email);
+        // Primero la caché de identidad (petición actual y luego caché con TTL)
+        User cached = userIdentityCache.get(email);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadEpoch = userIdentityCache.currentEpoch();
+        User user = email == null ? null : userRepository.findByEmail(email);
         if (user == null) {
             throw new Exception("User not found");
         }
+        userIdentityCache.put(user, loadEpoch);
         return user;
     }
 
     @Override
     public User updateUser(User user) throws Exception {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userIdentityCache.evict(saved.getEmail());
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public User updateProfile(Long userId, UpdateProfileRequest request) throws Exception {
+        User user = findManagedUser(userId);
+        try {
+            // Actualizar solo los campos permitidos
+            if (request.getFullName() != null && !request.getFullName().isEmpty()) {
+                user.setFullName(request.getFullName());
+            }
+            if (request.getPhoneNumber() != null) {
+                user.setPhoneNumber(request.getPhoneNumber());
+            }
+            if (request.getAddress() != null) {
+                user.setAddress(request.getAddress());
+            }
+            if (request.getProfileImage() != null) {
+                user.setProfileImage(request.getProfileImage());
+            }
+            return userRepository.save(user);
+        } finally {
+            userIdentityCache.evict(user.getEmail());
+        }
+    }
+
+    @Override
+    @Transactional
+    public User updateProfileImage(Long userId, String imageUrl) throws Exception {
+        User user = findManagedUser(userId);
+        try {
+            user.setProfileImage(imageUrl);
+            return userRepository.save(user);
+        } finally {
+            userIdentityCache.evict(user.getEmail());
+        }
+    }
+
+    private User findManagedUser(Long userId) throws Exception {
+        return userRepository.findById(userId).orElseThrow(() -> new Exception("User not found"));
     }
 
 }
@@ -0,0 +1,40 @@
+-- Secuencias por entidad (<tabla>_seq) con incremento 50 para el optimizador pooled-lo.
+-- Idempotente: se ejecuta en cada arranque después de que Hibernate actualiza el esquema.
+-- Solo adelanta una secuencia si va por detrás de los ids ya guardados; nunca la retrasa,
+-- así que es seguro con otras instancias repartiendo bloques de ids a la vez.
+DO $$
+DECLARE
+    entity record;
+    max_id bigint;
+    last_id bigint;
+BEGIN
+    FOR entity IN SELECT * FROM (VALUES
+            ('addresses', 'addresses_seq'),
+            ('cart', 'cart_seq'),
+            ('cart_item', 'cart_item_seq'),
+            ('category', 'category_seq'),
+            ('email_outbox', 'email_outbox_seq'),
+            ('food', 'food_seq'),
+            ('ingredient_category', 'ingredient_category_seq'),
+            ('ingredients_item', 'ingredients_item_seq'),
+            ('order_event_log', 'order_event_log_seq'),
+            ('order_item', 'order_item_seq'),
+            ('orders', 'orders_seq'),
+            ('password_reset_token', 'password_reset_token_seq'),
+            ('rating', 'rating_seq'),
+            ('restaurant', 'restaurant_seq'),
+            ('users', 'users_seq')
+        ) AS entities(table_name, sequence_name)
+    LOOP
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I START WITH 1 INCREMENT BY 50', entity.sequence_name);
+        EXECUTE format('ALTER SEQUENCE %I INCREMENT BY 50', entity.sequence_name);
+        IF to_regclass(entity.table_name) IS NOT NULL THEN
+            EXECUTE format('SELECT COALESCE(MAX(id), 0) FROM %I', entity.table_name) INTO max_id;
+            EXECUTE format('SELECT last_value FROM %I', entity.sequence_name) INTO last_id;
+            IF max_id >= last_id THEN
+                -- El siguiente nextval devuelve max_id + 50: el bloque empieza por encima de lo guardado
+                PERFORM setval(entity.sequence_name, max_id);
+            END IF;
+        END IF;
+    END LOOP;
+END $$
@@ -0,0 +1,150 @@
+package com.ZentroRestaurant;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.model.Food;
+import com.model.Order;
+import com.model.OrderItem;
+import com.model.OrderStatus;
+import com.repository.FoodRepository;
+import com.repository.OrderItemRepository;
+import com.repository.OrderRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Escritura de un pedido con 1, 10 y 50 líneas: un save por línea (cada uno en su
+ * transacción, como antes) frente a saveAll + save en una transacción con lotes JDBC.
+ * Las sentencias preparadas que cuenta Hibernate se usan como medida de viajes a la BD
+ * (incluidas las llamadas a las secuencias).
+ *
+ * Necesita la BD configurada (SPRING_DATASOURCE_URL) con al menos una comida.
+ * Los pedidos creados se borran al terminar.
+ *
+ * mvn -Pbenchmark test
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderPlacementBenchmarkTest {
+
+    private static final int[] CART_SIZES = { 1, 10, 50 };
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 30;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private FoodRepository foodRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    private final List<Long> createdOrders = new ArrayList<>();
+
+    @Test
+    void orderPlacementRoundTrips() {
+        List<Food> foods = foodRepository.findAll(PageRequest.of(0, 50)).getContent();
+        assumeTrue(!foods.isEmpty(), "No foods in the database");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (int size : CART_SIZES) {
+            run("per-item save", size, foods, statistics, false);
+            run("batched", size, foods, statistics, true);
+        }
+    }
+
+    private void run(String name, int size, List<Food> foods, Statistics statistics, boolean batched) {
+        for (int i = 0; i < WARMUP; i++) {
+            placeOrder(size, foods, batched);
+        }
+        statistics.clear();
+        List<Long> nanos = new ArrayList<>(ITERATIONS);
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            placeOrder(size, foods, batched);
+            nanos.add(System.nanoTime() - start);
+        }
+        System.out.printf("%-14s items=%-3d statements/order=%.1f p50=%.1fms p99=%.1fms%n", name, size,
+                statistics.getPrepareStatementCount() / (double) ITERATIONS,
+                percentile(nanos, 50), percentile(nanos, 99));
+    }
+
+    private void placeOrder(int size, List<Food> foods, boolean batched) {
+        List<OrderItem> items = new ArrayList<>(size);
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            Food food = foods.get(i % foods.size());
+            OrderItem item = new OrderItem();
+            item.setFood(food);
+            item.setQuantity(1);
+            item.setTotalPrice(food.getPrice());
+            item.setIngredientIds(new Long[0]);
+            items.add(item);
+            total += food.getPrice() == null ? 0 : food.getPrice();
+        }
+        Order order = new Order();
+        order.setCratedAt(new Date());
+        order.setOrderStatus(OrderStatus.PENDING);
+        order.setItems(items);
+        order.setTotalPrice(total);
+
+        Order saved;
+        if (batched) {
+            saved = transactionTemplate.execute(status -> {
+                orderItemRepository.saveAll(items);
+                return orderRepository.save(order);
+            });
+        } else {
+            // Escritura anterior: cada save es su propia transacción, no hay nada que agrupar
+            for (int i = 0; i < items.size(); i++) {
+                items.set(i, orderItemRepository.save(items.get(i)));
+            }
+            saved = orderRepository.save(order);
+        }
+        createdOrders.add(saved.getId());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Order order : orderRepository.findAllById(createdOrders)) {
+                List<OrderItem> items = new ArrayList<>(order.getItems());
+                orderRepository.delete(order);
+                orderItemRepository.deleteAll(items);
+            }
+        });
+        createdOrders.clear();
+    }
+
+    private static double percentile(List<Long> samples, int percentile) {
+        if (samples.isEmpty()) {
+            return 0;
+        }
+        List<Long> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+}
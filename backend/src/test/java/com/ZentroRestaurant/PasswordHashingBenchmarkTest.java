@@ -0,0 +1,129 @@
+package com.ZentroRestaurant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.config.CalibratedBCryptPasswordEncoder;
+import com.service.PasswordHashServiceImp;
+
+/**
+ * Tormenta de logins contra peticiones de catálogo concurrentes: compara hashear en
+ * los hilos de la petición con hashear en el pool acotado de PasswordHashServiceImp.
+ *
+ * mvn -Pbenchmark test
+ */
+@Tag("benchmark")
+class PasswordHashingBenchmarkTest {
+
+    private static final int LOGIN_THREADS = 64;
+    private static final int LOGINS_PER_THREAD = 4;
+    private static final int CATALOG_THREADS = 8;
+    private static final int BCRYPT_COST = 10;
+
+    private final CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(BCRYPT_COST);
+    private final String hash = encoder.encode("secret-password");
+
+    @Test
+    void loginStormOnRequestThreads() throws Exception {
+        runScenario("request threads", encoder::matches);
+    }
+
+    @Test
+    void loginStormOnBoundedPool() throws Exception {
+        PasswordHashServiceImp service = new PasswordHashServiceImp(encoder, null, null, 0, 32, 5000);
+        try {
+            runScenario("bounded pool", service::matches);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private void runScenario(String name, BiPredicate<String, String> login) throws Exception {
+        List<Long> loginNanos = Collections.synchronizedList(new ArrayList<>());
+        List<Long> catalogNanos = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicBoolean storming = new AtomicBoolean(true);
+
+        ExecutorService catalog = Executors.newFixedThreadPool(CATALOG_THREADS);
+        for (int i = 0; i < CATALOG_THREADS; i++) {
+            catalog.execute(() -> {
+                Random random = new Random();
+                while (storming.get()) {
+                    long start = System.nanoTime();
+                    simulateCatalogRequest(random);
+                    catalogNanos.add(System.nanoTime() - start);
+                }
+            });
+        }
+
+        ExecutorService logins = Executors.newFixedThreadPool(LOGIN_THREADS);
+        CountDownLatch done = new CountDownLatch(LOGIN_THREADS);
+        for (int i = 0; i < LOGIN_THREADS; i++) {
+            logins.execute(() -> {
+                try {
+                    for (int n = 0; n < LOGINS_PER_THREAD; n++) {
+                        long start = System.nanoTime();
+                        try {
+                            login.test("secret-password", hash);
+                            loginNanos.add(System.nanoTime() - start);
+                        } catch (RejectedExecutionException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await(5, TimeUnit.MINUTES);
+        storming.set(false);
+        logins.shutdown();
+        catalog.shutdown();
+        catalog.awaitTermination(10, TimeUnit.SECONDS);
+
+        System.out.printf("%-16s logins ok=%d rejected=%d p50=%.1fms p99=%.1fms | catalog n=%d p50=%.2fms p99=%.2fms%n",
+                name, loginNanos.size(), rejected.get(), percentile(loginNanos, 50), percentile(loginNanos, 99),
+                catalogNanos.size(), percentile(catalogNanos, 50), percentile(catalogNanos, 99));
+    }
+
+    // Carga de CPU parecida a serializar una página del catálogo
+    private static void simulateCatalogRequest(Random random) {
+        int[] prices = new int[2_000];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = random.nextInt(100_000);
+        }
+        Arrays.sort(prices);
+        StringBuilder json = new StringBuilder(prices.length * 8);
+        for (int price : prices) {
+            json.append(price).append(',');
+        }
+        if (json.length() == 0) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static double percentile(List<Long> samples, int percentile) {
+        if (samples.isEmpty()) {
+            return 0;
+        }
+        List<Long> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+}
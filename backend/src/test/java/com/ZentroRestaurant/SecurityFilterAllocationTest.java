@@ -0,0 +1,135 @@
+package com.ZentroRestaurant;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.filter.CorsFilter;
+
+import com.config.AppConfig;
+import com.config.JwtConstant;
+import com.config.JwtTokenValidator;
+import com.config.JwtTokenVerifier;
+import com.service.TokenRevocationService;
+
+import io.jsonwebtoken.Jwts;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+
+/**
+ * Presupuesto de memoria asignada por petición en la cadena de seguridad (CORS + JWT)
+ * con un token ya cacheado, medido con ThreadMXBean sobre el hilo actual.
+ *
+ * Los bytes asignados dependen del JIT y de la JVM, así que no corre en la suite normal.
+ *
+ * mvn -Pbenchmark test
+ */
+@Tag("benchmark")
+class SecurityFilterAllocationTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 20_000;
+
+    // Bytes por petición
+    private static final long JWT_FILTER_BUDGET = 2 * 1024;
+    private static final long CHAIN_BUDGET = 16 * 1024;
+
+    private final FilterChain terminal = (req, res) -> {
+    };
+
+    private JwtTokenValidator jwtFilter;
+    private CorsFilter corsFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        JwtTokenVerifier verifier = new JwtTokenVerifier();
+        ReflectionTestUtils.setField(verifier, "tokenRevocationService", new TokenRevocationService() {
+            @Override
+            public void revoke(String jti, Date expiresAt) {
+            }
+
+            @Override
+            public boolean isRevoked(String jti) {
+                return false;
+            }
+        });
+
+        String jwt = Jwts.builder().setId("test-jti")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + JwtConstant.EXPIRATION_TIME))
+                .claim("email", "owner@zentro.test")
+                .claim("authorities", "ROLE_RESTAURANT_OWNER")
+                .claim("uid", 1L)
+                .claim("role", "ROLE_RESTAURANT_OWNER")
+                .claim("rid", 7L)
+                .claim("ver", JwtConstant.CLAIMS_VERSION)
+                .signWith(verifier.getKey())
+                .compact();
+
+        jwtFilter = new JwtTokenValidator(verifier);
+        corsFilter = new CorsFilter(AppConfig.corsConfigurationSource());
+
+        request = new MockHttpServletRequest("GET", "/api/restaurants");
+        request.addHeader("Origin", "https://zentro-delivery.vercel.app");
+        request.setCookies(new Cookie("zentro_jwt", jwt));
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void jwtFilterStaysWithinBudget() throws Exception {
+        FilterChain chain = (req, res) -> jwtFilter.doFilter(req, res, terminal);
+
+        chain.doFilter(request, response);
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+
+        long perRequest = measure(chain);
+        System.out.println("JWT filter: " + perRequest + " bytes/request (budget " + JWT_FILTER_BUDGET + ")");
+        assertTrue(perRequest <= JWT_FILTER_BUDGET, "JWT filter allocates " + perRequest + " bytes per request");
+    }
+
+    @Test
+    void corsAndJwtChainStaysWithinBudget() throws Exception {
+        FilterChain afterCors = (req, res) -> jwtFilter.doFilter(req, res, terminal);
+        FilterChain chain = (req, res) -> corsFilter.doFilter(req, res, afterCors);
+
+        long perRequest = measure(chain);
+        System.out.println("CORS + JWT chain: " + perRequest + " bytes/request (budget " + CHAIN_BUDGET + ")");
+        assertTrue(perRequest <= CHAIN_BUDGET, "Security chain allocates " + perRequest + " bytes per request");
+    }
+
+    private long measure(FilterChain chain) throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        for (int i = 0; i < WARMUP; i++) {
+            runOnce(chain);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            runOnce(chain);
+        }
+        long after = threads.getCurrentThreadAllocatedBytes();
+        return (after - before) / ITERATIONS;
+    }
+
+    private void runOnce(FilterChain chain) throws Exception {
+        chain.doFilter(request, response);
+        SecurityContextHolder.clearContext();
+        response.reset();
+    }
+}
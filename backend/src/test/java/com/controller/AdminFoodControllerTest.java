@@ -0,0 +1,96 @@
+package com.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.config.JwtConstant;
+import com.config.JwtPrincipal;
+import com.model.Food;
+import com.model.Restaurant;
+import com.model.USER_ROLE;
+import com.request.UpdateFoodPriceRequest;
+import com.service.FoodService;
+
+/**
+ * Cambiar el precio de una comida reprecia todos los carritos que la tienen: un dueño de
+ * restaurante solo puede hacerlo con las comidas del suyo.
+ */
+class AdminFoodControllerTest {
+
+    private static final long FOOD_ID = 100L;
+    private static final long RESTAURANT_ID = 7L;
+
+    private FoodService foodService;
+    private AdminFoodController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(RESTAURANT_ID);
+        Food food = new Food();
+        food.setId(FOOD_ID);
+        food.setRestaurant(restaurant);
+
+        foodService = mock(FoodService.class);
+        when(foodService.findFoodById(FOOD_ID)).thenReturn(food);
+        when(foodService.updatePrice(FOOD_ID, 2_500L)).thenReturn(food);
+        controller = new AdminFoodController();
+        ReflectionTestUtils.setField(controller, "foodService", foodService);
+    }
+
+    @Test
+    void ownerOfAnotherRestaurantCannotReprice() throws Exception {
+        ResponseEntity<Food> response = controller.updateFoodPrice(FOOD_ID, price(2_500L),
+                principal(USER_ROLE.ROLE_RESTAURANT_OWNER, RESTAURANT_ID + 1));
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        verify(foodService, never()).updatePrice(anyLong(), anyLong());
+    }
+
+    @Test
+    void ownerWithoutRestaurantCannotReprice() throws Exception {
+        ResponseEntity<Food> response = controller.updateFoodPrice(FOOD_ID, price(2_500L),
+                principal(USER_ROLE.ROLE_RESTAURANT_OWNER, null));
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        verify(foodService, never()).updatePrice(anyLong(), anyLong());
+    }
+
+    @Test
+    void ownerRepricesTheirOwnFood() throws Exception {
+        ResponseEntity<Food> response = controller.updateFoodPrice(FOOD_ID, price(2_500L),
+                principal(USER_ROLE.ROLE_RESTAURANT_OWNER, RESTAURANT_ID));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(foodService).updatePrice(FOOD_ID, 2_500L);
+    }
+
+    @Test
+    void adminRepricesAnyFood() throws Exception {
+        ResponseEntity<Food> response = controller.updateFoodPrice(FOOD_ID, price(2_500L),
+                principal(USER_ROLE.ROLE_ADMIN, null));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(foodService).updatePrice(FOOD_ID, 2_500L);
+    }
+
+    private static UpdateFoodPriceRequest price(long value) {
+        UpdateFoodPriceRequest req = new UpdateFoodPriceRequest();
+        req.setPrice(value);
+        return req;
+    }
+
+    private static JwtPrincipal principal(USER_ROLE role, Long restaurantId) {
+        return new JwtPrincipal(1L, "owner@zentro.test", role, restaurantId, JwtConstant.CLAIMS_VERSION);
+    }
+}
@@ -0,0 +1,28 @@
+package com.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.model.OrderStatus;
+
+/**
+ * Los ids de evento superan 2^53: en el JSON tienen que ir como texto para que el
+ * navegador los devuelva intactos en Last-Event-ID.
+ */
+class OrderEventTest {
+
+    @Test
+    void idIsSerializedAsTextWithoutLosingPrecision() throws Exception {
+        long id = (1_760_000_000_123_001L << 8) | 37;
+        OrderEvent event = new OrderEvent(id, OrderEvent.CREATED, 1L, 2L, 3L, OrderStatus.PENDING, null, 1000L, null);
+
+        JsonNode json = new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(event));
+
+        assertTrue(json.get("id").isTextual());
+        assertEquals(id, Long.parseLong(json.get("id").asText()));
+    }
+}
@@ -0,0 +1,60 @@
+package com.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tabla de transiciones: solo se avanza y cada estado llega únicamente a los previstos.
+ */
+class OrderStatusTest {
+
+    @Test
+    void allowedTransitions() {
+        assertTrue(OrderStatus.PENDING.canTransitionTo(OrderStatus.OUT_FOR_DELIVERY));
+        assertTrue(OrderStatus.PENDING.canTransitionTo(OrderStatus.COMPLETED));
+        assertTrue(OrderStatus.OUT_FOR_DELIVERY.canTransitionTo(OrderStatus.DELIVERED));
+        assertTrue(OrderStatus.DELIVERED.canTransitionTo(OrderStatus.COMPLETED));
+    }
+
+    @Test
+    void forbiddenTransitions() {
+        Set<String> allowed = Set.of("PENDING>OUT_FOR_DELIVERY", "PENDING>COMPLETED",
+                "OUT_FOR_DELIVERY>DELIVERED", "DELIVERED>COMPLETED");
+        for (OrderStatus from : OrderStatus.values()) {
+            for (OrderStatus to : OrderStatus.values()) {
+                if (!allowed.contains(from + ">" + to)) {
+                    assertFalse(from.canTransitionTo(to), from + " -> " + to);
+                }
+            }
+        }
+    }
+
+    @Test
+    void sourcesOfInvertsTheTable() {
+        assertEquals(EnumSet.noneOf(OrderStatus.class), OrderStatus.sourcesOf(OrderStatus.PENDING));
+        assertEquals(EnumSet.of(OrderStatus.PENDING), OrderStatus.sourcesOf(OrderStatus.OUT_FOR_DELIVERY));
+        assertEquals(EnumSet.of(OrderStatus.OUT_FOR_DELIVERY), OrderStatus.sourcesOf(OrderStatus.DELIVERED));
+        assertEquals(EnumSet.of(OrderStatus.PENDING, OrderStatus.DELIVERED),
+                OrderStatus.sourcesOf(OrderStatus.COMPLETED));
+    }
+
+    @Test
+    void onlyPendingOrdersCanBeCancelled() {
+        assertEquals(EnumSet.of(OrderStatus.PENDING), OrderStatus.cancellable());
+    }
+
+    @Test
+    void parseIsLenientAndReturnsNullForUnknownValues() {
+        assertEquals(OrderStatus.OUT_FOR_DELIVERY, OrderStatus.parse(" out_for_delivery "));
+        assertNull(OrderStatus.parse("CANCELLED"));
+        assertNull(OrderStatus.parse(""));
+        assertNull(OrderStatus.parse(null));
+    }
+}
@@ -0,0 +1,145 @@
+package com.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.model.CartItem;
+import com.model.Food;
+
+/**
+ * Fusión de filas duplicadas al cargar y rebase de los cambios pendientes sobre el
+ * estado de la BD cuando otro escritor movió la versión del carrito.
+ */
+class CartSessionTest {
+
+    private static final long PRICE = 1_000;
+
+    @Test
+    void restoreMergesDuplicateRows() {
+        CartSession session = new CartSession(1L, null, 3);
+        session.restore(CartSession.Line.of(item(10L, 100L, 2, 5L)));
+        session.restore(CartSession.Line.of(item(11L, 100L, 3, 5L)));
+
+        assertEquals(1, session.lines().size());
+        CartSession.Line line = session.findByItem(10L);
+        assertEquals(5, line.getQuantity());
+        assertEquals(5 * PRICE, line.getTotalPrice());
+        assertNull(session.findByItem(11L));
+        assertEquals(5, session.getItemCount());
+        assertEquals(5 * PRICE, session.getTotal());
+        // La fila fusionada se borra y la que queda se reescribe con la suma
+        assertEquals(List.of(11L), session.removedItemIds());
+        assertTrue(session.dirtyLines().contains(line));
+    }
+
+    @Test
+    void restoreKeepsDifferentIngredientsApart() {
+        CartSession session = new CartSession(1L, null, 0);
+        session.restore(CartSession.Line.of(item(10L, 100L, 2, 5L)));
+        session.restore(CartSession.Line.of(item(11L, 100L, 3, 6L)));
+
+        assertEquals(2, session.lines().size());
+        assertEquals(5, session.getItemCount());
+        assertTrue(session.removedItemIds().isEmpty());
+        assertFalse(session.isDirty());
+    }
+
+    @Test
+    void rebaseAppliesPendingChangeAsDeltaOnReloadedQuantity() {
+        CartSession session = loaded(item(10L, 100L, 2, 5L));
+        session.updateQuantity(session.findByItem(10L), 5);
+
+        // Otro escritor dejó la línea en 4 y la versión en 7: el +3 pendiente va encima
+        session.rebase(List.of(item(10L, 100L, 4, 5L)), 7);
+
+        CartSession.Line line = session.findByItem(10L);
+        assertEquals(7, line.getQuantity());
+        assertEquals(7 * PRICE, session.getTotal());
+        assertEquals(7, session.getItemCount());
+        assertEquals(7, session.getPersistedVersion());
+        assertTrue(session.getVersion() > 7);
+        assertTrue(session.dirtyLines().contains(line));
+    }
+
+    @Test
+    void rebaseKeepsPendingRemovals() {
+        CartSession session = loaded(item(10L, 100L, 2, 5L), item(11L, 200L, 1, 5L));
+        session.remove(session.findByItem(11L));
+
+        session.rebase(List.of(item(10L, 100L, 2, 5L), item(11L, 200L, 4, 5L)), 5);
+
+        assertNull(session.findByItem(11L));
+        assertEquals(List.of(11L), session.removedItemIds());
+        assertEquals(2, session.getItemCount());
+        assertEquals(2 * PRICE, session.getTotal());
+    }
+
+    @Test
+    void rebaseDropsLinesDeletedByTheOtherWriter() {
+        CartSession session = loaded(item(10L, 100L, 2, 5L), item(11L, 200L, 1, 5L));
+        session.updateQuantity(session.findByItem(11L), 3);
+
+        session.rebase(List.of(item(10L, 100L, 2, 5L)), 5);
+
+        assertNull(session.findByItem(11L));
+        assertTrue(session.removedItemIds().isEmpty());
+        assertTrue(session.dirtyLines().isEmpty());
+        assertEquals(2, session.getItemCount());
+    }
+
+    @Test
+    void rebaseRemovesLinesWhoseDeltaLeavesNothing() {
+        CartSession session = loaded(item(10L, 100L, 5, 5L));
+        session.updateQuantity(session.findByItem(10L), 1);
+
+        // -4 sobre las 3 que quedan en la BD
+        session.rebase(List.of(item(10L, 100L, 3, 5L)), 5);
+
+        assertNull(session.findByItem(10L));
+        assertEquals(List.of(10L), session.removedItemIds());
+        assertEquals(0, session.getItemCount());
+        assertEquals(0, session.getTotal());
+    }
+
+    @Test
+    void rebaseMergesDuplicatesInsertedByTheOtherWriter() {
+        CartSession session = loaded(item(10L, 100L, 2, 5L));
+        session.updateQuantity(session.findByItem(10L), 3);
+
+        session.rebase(List.of(item(10L, 100L, 2, 5L), item(12L, 100L, 4, 5L)), 5);
+
+        assertEquals(1, session.lines().size());
+        assertEquals(7, session.findByItem(10L).getQuantity());
+        assertEquals(List.of(12L), session.removedItemIds());
+        assertEquals(7 * PRICE, session.getTotal());
+    }
+
+    // Sesión recién cargada y ya escrita: sin nada pendiente
+    private static CartSession loaded(CartItem... items) {
+        CartSession session = new CartSession(1L, null, 3);
+        for (CartItem item : items) {
+            session.restore(CartSession.Line.of(item));
+        }
+        session.markClean();
+        return session;
+    }
+
+    private static CartItem item(Long id, Long foodId, int quantity, Long... ingredientIds) {
+        Food food = new Food();
+        food.setId(foodId);
+        food.setPrice(PRICE);
+        CartItem item = new CartItem();
+        item.setId(id);
+        item.setFood(food);
+        item.setQuantity(quantity);
+        item.setIngredientIds(CartItem.canonicalIngredientIds(List.of(ingredientIds)));
+        item.setTotalPrice(quantity * PRICE);
+        return item;
+    }
+}
@@ -0,0 +1,39 @@
+package com.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.model.OrderStatus;
+
+/**
+ * Un pedido archivado ya no está en {@code orders}, así que updateOrder no lo encuentra:
+ * solo se pueden archivar estados desde los que no se llega a ningún otro.
+ */
+class OrderArchiverTest {
+
+    @Test
+    void onlyCompletedOrdersAreArchived() {
+        assertEquals(List.of(OrderStatus.COMPLETED.name()), OrderArchiver.ARCHIVABLE);
+    }
+
+    @Test
+    void archivedOrdersNeverNeedAStatusTransition() {
+        for (String archived : OrderArchiver.ARCHIVABLE) {
+            OrderStatus status = OrderStatus.valueOf(archived);
+            for (OrderStatus target : OrderStatus.values()) {
+                assertFalse(status.canTransitionTo(target), archived + " -> " + target);
+                assertFalse(OrderStatus.sourcesOf(target).contains(status), archived + " -> " + target);
+            }
+        }
+    }
+
+    @Test
+    void deliveredOrdersStayActiveUntilCompleted() {
+        assertFalse(OrderStatus.DELIVERED.isTerminal());
+        assertFalse(OrderArchiver.ARCHIVABLE.contains(OrderStatus.DELIVERED.name()));
+    }
+}
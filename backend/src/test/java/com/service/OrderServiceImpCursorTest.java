@@ -0,0 +1,47 @@
+package com.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Cursor opaco de los listados de pedidos: lo que se codifica se recupera igual y un
+ * cursor manipulado se rechaza con un error en lugar de una excepción sin controlar.
+ */
+class OrderServiceImpCursorTest {
+
+    @Test
+    void cursorRoundTrip() throws Exception {
+        Date cratedAt = new Date(1_760_000_000_123L);
+        OrderServiceImp.Cursor cursor = OrderServiceImp.decodeCursor(OrderServiceImp.encodeCursor(cratedAt, 42L));
+
+        assertEquals(cratedAt, cursor.cratedAt());
+        assertEquals(42L, cursor.id());
+    }
+
+    @Test
+    void missingCursorStartsAtTheNewestOrder() throws Exception {
+        OrderServiceImp.Cursor cursor = OrderServiceImp.decodeCursor(null);
+
+        assertEquals(Long.MAX_VALUE, cursor.id());
+        assertEquals(cursor.cratedAt(), OrderServiceImp.decodeCursor("  ").cratedAt());
+    }
+
+    @Test
+    void invalidCursorsAreRejected() {
+        for (String cursor : new String[] { "not base64!", encode("no-colon"), encode("abc:1"), encode("1:abc"),
+                encode(":") }) {
+            Exception error = assertThrows(Exception.class, () -> OrderServiceImp.decodeCursor(cursor), cursor);
+            assertEquals("Invalid cursor", error.getMessage());
+        }
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
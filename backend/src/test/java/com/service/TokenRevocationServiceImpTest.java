@@ -0,0 +1,79 @@
+package com.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.repository.RevokedTokenRepository;
+
+/**
+ * El filtro de Bloom puede dar falsos positivos (los resuelve el mapa exacto) pero nunca
+ * falsos negativos: un token revocado y sin expirar tiene que verse siempre como revocado.
+ */
+class TokenRevocationServiceImpTest {
+
+    @Test
+    void bloomFilterHasNoFalseNegatives() {
+        TokenRevocationServiceImp.BloomFilter bloom = new TokenRevocationServiceImp.BloomFilter(1 << 10, 4);
+        List<String> values = new ArrayList<>();
+        // Muchos más valores que bits: el filtro se satura y aun así no puede olvidar ninguno
+        for (int i = 0; i < 5_000; i++) {
+            String value = UUID.randomUUID().toString();
+            values.add(value);
+            bloom.put(value);
+        }
+        for (String value : values) {
+            assertTrue(bloom.mightContain(value), value);
+        }
+    }
+
+    @Test
+    void emptyBloomFilterContainsNothing() {
+        TokenRevocationServiceImp.BloomFilter bloom = new TokenRevocationServiceImp.BloomFilter(1 << 10, 4);
+        assertFalse(bloom.mightContain("jti"));
+        assertFalse(bloom.mightContain(""));
+    }
+
+    @Test
+    void sweepKeepsLiveRevocationsAfterRebuildingTheFilter() {
+        RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+        when(repository.findByRevokedAtAfterAndExpiresAtAfter(any(), any())).thenReturn(List.of());
+        TokenRevocationServiceImp service = new TokenRevocationServiceImp();
+        ReflectionTestUtils.setField(service, "revokedTokenRepository", repository);
+
+        long now = System.currentTimeMillis();
+        List<String> live = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            String jti = "live-" + i;
+            live.add(jti);
+            service.revoke(jti, new Date(now + 3_600_000));
+        }
+        service.revoke("expired", new Date(now + 1));
+
+        // El barrido quita "expired" y reconstruye el filtro con el resto
+        await(now + 5);
+        service.sweep();
+
+        for (String jti : live) {
+            assertTrue(service.isRevoked(jti), jti);
+        }
+        assertFalse(service.isRevoked("expired"));
+        assertFalse(service.isRevoked("never-revoked"));
+    }
+
+    private static void await(long untilMillis) {
+        while (System.currentTimeMillis() < untilMillis) {
+            Thread.onSpinWait();
+        }
+    }
+}